@@ -0,0 +1,86 @@
+package com.memory.benchmark;
+
+import com.memory.model.BuddySystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Steady-state allocate/deallocate on BuddySystem: every operation frees the oldest live block
+// and allocates a new one, so the heap stays at a constant live-set size.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocatorBenchmark {
+    public enum HeapState { FRESH, FRAGMENTED }
+
+    @Param({"1024", "1048576", "1073741824"})
+    public int arenaSize;
+
+    @Param({"UNIFORM", "POWER_LAW", "ALL_SMALL", "ALL_LARGE"})
+    public SizeDistribution distribution;
+
+    @Param({"FRESH", "FRAGMENTED"})
+    public HeapState heapState;
+
+    @Param({"256"})
+    public int liveBlocks;
+
+    private BuddySystem buddySystem;
+    private int[] sizes;
+    private int[] live;
+    private int[] batchSizes;
+    private int[] batchAddresses;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        buddySystem = new BuddySystem(arenaSize);
+        // Large requests are capped so that a handful of them can be live at once
+        sizes = distribution.sample(Math.max(1, arenaSize / 64), 42);
+        live = new int[liveBlocks];
+        Arrays.fill(live, -1);
+        batchSizes = new int[16];
+        batchAddresses = new int[16];
+        cursor = 0;
+        if (heapState == HeapState.FRAGMENTED) {
+            fragment(buddySystem);
+        }
+    }
+
+    // Fills the arena with minimum-size blocks and frees every other one, leaving a checkerboard
+    // of free blocks that cannot be coalesced
+    static void fragment(BuddySystem buddySystem) {
+        int blockSize = Math.max(1, buddySystem.getTotalSize() >>> 16);
+        int blocks = buddySystem.getTotalSize() / blockSize / 2;
+        for (int i = 0; i < blocks; i++) {
+            Integer first = buddySystem.allocate(blockSize, "filler");
+            buddySystem.allocate(blockSize, "filler");
+            buddySystem.deallocate(first);
+        }
+    }
+
+    @Benchmark
+    public int allocateDeallocate() {
+        int slot = cursor++ % live.length;
+        if (live[slot] >= 0) {
+            buddySystem.deallocate(live[slot]);
+        }
+        Integer address = buddySystem.allocate(sizes[cursor & (SizeDistribution.SAMPLE_COUNT - 1)], "bench");
+        live[slot] = address == null ? -1 : address;
+        return live[slot];
+    }
+
+    @Benchmark
+    public int allocateBatchDeallocateBatch() {
+        for (int i = 0; i < batchSizes.length; i++) {
+            batchSizes[i] = sizes[cursor++ & (SizeDistribution.SAMPLE_COUNT - 1)];
+        }
+        int allocated = buddySystem.allocateBatch(batchSizes, "bench", batchAddresses);
+        buddySystem.deallocateBatch(batchAddresses);
+        return allocated;
+    }
+}
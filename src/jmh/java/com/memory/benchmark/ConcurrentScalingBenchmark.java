@@ -0,0 +1,132 @@
+package com.memory.benchmark;
+
+import com.memory.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Multi-threaded allocate/deallocate against the thread-safe variants. Run with -t 1,2,4,...
+// (or the fixed-thread methods below) to see how throughput scales with cores.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentScalingBenchmark {
+    public enum Variant { SYNCHRONIZED, CONCURRENT, THREAD_CACHED, SHARDED }
+
+    @State(Scope.Benchmark)
+    public static class SharedAllocator {
+        @Param({"SYNCHRONIZED", "CONCURRENT", "THREAD_CACHED", "SHARDED"})
+        public Variant variant;
+
+        @Param({"ALL_SMALL", "POWER_LAW"})
+        public SizeDistribution distribution;
+
+        MemoryAllocator allocator;
+        int[] sizes;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            int arenaSize = 1 << 26;
+            switch (variant) {
+                case SYNCHRONIZED:
+                    allocator = new SynchronizedAllocator(new BuddySystem(arenaSize));
+                    break;
+                case CONCURRENT:
+                    allocator = new ConcurrentBuddySystem(arenaSize);
+                    break;
+                case THREAD_CACHED:
+                    allocator = new ThreadCachingAllocator(new ConcurrentBuddySystem(arenaSize));
+                    break;
+                default:
+                    allocator = new ShardedBuddySystem(8, arenaSize / 8);
+            }
+            sizes = distribution.sample(4096, 42);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LiveSet {
+        int[] live = new int[64];
+        int cursor;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            Arrays.fill(live, -1);
+            cursor = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown(SharedAllocator shared) {
+            for (int address : live) {
+                if (address >= 0) {
+                    shared.allocator.deallocate(address);
+                }
+            }
+            if (shared.allocator instanceof ThreadCachingAllocator) {
+                ((ThreadCachingAllocator) shared.allocator).flushThreadCache();
+            }
+        }
+    }
+
+    @Benchmark
+    public int allocateDeallocate(SharedAllocator shared, LiveSet liveSet) {
+        return step(shared, liveSet);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int threads1(SharedAllocator shared, LiveSet liveSet) {
+        return step(shared, liveSet);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public int threads2(SharedAllocator shared, LiveSet liveSet) {
+        return step(shared, liveSet);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int threads4(SharedAllocator shared, LiveSet liveSet) {
+        return step(shared, liveSet);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int threads8(SharedAllocator shared, LiveSet liveSet) {
+        return step(shared, liveSet);
+    }
+
+    private static int step(SharedAllocator shared, LiveSet liveSet) {
+        int[] live = liveSet.live;
+        int slot = liveSet.cursor++ % live.length;
+        if (live[slot] >= 0) {
+            shared.allocator.deallocate(live[slot]);
+        }
+        Integer address = shared.allocator.allocate(
+                shared.sizes[liveSet.cursor & (SizeDistribution.SAMPLE_COUNT - 1)], "bench");
+        live[slot] = address == null ? -1 : address;
+        return live[slot];
+    }
+
+    // Baseline: one global lock around a plain BuddySystem
+    static final class SynchronizedAllocator implements MemoryAllocator {
+        private final BuddySystem delegate;
+
+        SynchronizedAllocator(BuddySystem delegate) {
+            this.delegate = delegate;
+        }
+
+        public synchronized Integer allocate(int size, String processId) { return delegate.allocate(size, processId); }
+        public synchronized boolean deallocate(int address) { return delegate.deallocate(address); }
+        public synchronized int getTotalSize() { return delegate.getTotalSize(); }
+        public synchronized int getTotalAllocated() { return delegate.getTotalAllocated(); }
+        public synchronized int getFreeMemory() { return delegate.getFreeMemory(); }
+        public synchronized int getPeakMemoryUsage() { return delegate.getPeakMemoryUsage(); }
+        public synchronized int getAllocationCount() { return delegate.getAllocationCount(); }
+        public synchronized int getFragmentationCount() { return delegate.getFragmentationCount(); }
+    }
+}
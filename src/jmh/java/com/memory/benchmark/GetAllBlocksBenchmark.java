@@ -0,0 +1,58 @@
+package com.memory.benchmark;
+
+import com.memory.model.BlockSnapshot;
+import com.memory.model.BuddySystem;
+import com.memory.model.MemoryBlock;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of taking the full block layout, as the GUI and exporters do
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetAllBlocksBenchmark {
+    @Param({"1024", "65536", "1048576"})
+    public int allocatedBlocks;
+
+    private BuddySystem buddySystem;
+
+    @Setup
+    public void setUp() {
+        buddySystem = new BuddySystem(Integer.highestOneBit(allocatedBlocks) * 64);
+        for (int i = 0; i < allocatedBlocks; i++) {
+            buddySystem.allocate(1 + (i % 48), "bench");
+        }
+    }
+
+    @Benchmark
+    public List<MemoryBlock> getAllBlocks() {
+        return buddySystem.getAllBlocks();
+    }
+
+    // Walks the layout without materializing it
+    @Benchmark
+    public int iterateBlocks() {
+        int allocated = 0;
+        Iterator<MemoryBlock> blocks = buddySystem.blocks(0, buddySystem.getTotalSize());
+        while (blocks.hasNext()) {
+            if (blocks.next().isAllocated()) {
+                allocated++;
+            }
+        }
+        return allocated;
+    }
+
+    // Snapshot after a one-block change, which copies only the chunks that change touched
+    @Benchmark
+    public BlockSnapshot snapshot() {
+        int address = buddySystem.allocate(1, "bench");
+        buddySystem.deallocate(address);
+        return buddySystem.snapshot();
+    }
+}
@@ -0,0 +1,50 @@
+package com.memory.benchmark;
+
+import com.memory.model.LargeBuddySystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Steady-state allocate/deallocate on multi-GiB arenas with 4 KiB pages
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LargeArenaBenchmark {
+    @Param({"4294967296", "68719476736"})
+    public long arenaSize;
+
+    @Param({"UNIFORM", "POWER_LAW", "ALL_SMALL", "ALL_LARGE"})
+    public SizeDistribution distribution;
+
+    @Param({"12"})
+    public int minOrder;
+
+    private LargeBuddySystem buddySystem;
+    private int[] sizes;
+    private long[] live;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        buddySystem = new LargeBuddySystem(arenaSize, minOrder);
+        sizes = distribution.sample(1 << 30, 42);
+        live = new long[256];
+        Arrays.fill(live, -1);
+        cursor = 0;
+    }
+
+    @Benchmark
+    public long allocateDeallocate() {
+        int slot = cursor++ % live.length;
+        if (live[slot] >= 0) {
+            buddySystem.deallocate(live[slot]);
+        }
+        Long address = buddySystem.allocate(sizes[cursor & (SizeDistribution.SAMPLE_COUNT - 1)], "bench");
+        live[slot] = address == null ? -1 : address;
+        return live[slot];
+    }
+}
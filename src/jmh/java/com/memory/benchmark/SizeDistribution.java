@@ -0,0 +1,38 @@
+package com.memory.benchmark;
+
+import java.util.SplittableRandom;
+
+// Request size mixes used across the benchmarks; every generated size fits in maxSize
+public enum SizeDistribution {
+    UNIFORM,
+    POWER_LAW,
+    ALL_SMALL,
+    ALL_LARGE;
+
+    public static final int SAMPLE_COUNT = 4096;
+
+    public int[] sample(long maxSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int max = (int) Math.min(maxSize, Integer.MAX_VALUE);
+        int[] sizes = new int[SAMPLE_COUNT];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = next(random, max);
+        }
+        return sizes;
+    }
+
+    private int next(SplittableRandom random, int max) {
+        switch (this) {
+            case UNIFORM:
+                return 1 + random.nextInt(max);
+            case POWER_LAW:
+                // Pareto with alpha = 1.2: mostly small requests with a long tail of large ones
+                double size = 16 / Math.pow(1.0 - random.nextDouble(), 1.0 / 1.2);
+                return (int) Math.max(1, Math.min(max, size));
+            case ALL_SMALL:
+                return 1 + random.nextInt(Math.min(max, 128));
+            default:
+                return Math.max(1, max / 2 + random.nextInt(Math.max(1, max / 2)));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.memory.gui;
+
+import com.memory.model.AllocationListener;
+
+import java.util.Arrays;
+
+// Collects allocator events between two frames into primitive arrays. The allocator thread only
+// appends; the refresh thread swaps the filled batch for an empty one. When more events arrive
+// than a batch holds, the batch is marked overflowed and the view resynchronizes from the
+// allocator instead of replaying them.
+public class AllocationEventBuffer implements AllocationListener {
+    private Batch current;
+    private Batch spare;
+
+    public AllocationEventBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.current = new Batch(capacity);
+        this.spare = new Batch(capacity);
+    }
+
+    @Override
+    public synchronized void blockAllocated(int address, int size, String processId) {
+        current.add(address, size, processId);
+    }
+
+    @Override
+    public synchronized void blockFreed(int address, int size, String processId) {
+        current.add(address, -size, processId);
+    }
+
+    // Returns the events recorded so far; the batch stays valid until the next call
+    public synchronized Batch take() {
+        Batch taken = current;
+        current = spare;
+        current.clear();
+        spare = taken;
+        return taken;
+    }
+
+    // Drops everything recorded so far, used right before a resynchronization
+    public synchronized void clear() {
+        current.clear();
+    }
+
+    public static final class Batch {
+        private final int[] addresses;
+        // Block size, negated for freed blocks
+        private final int[] sizes;
+        private final String[] processIds;
+        private int count;
+        private boolean overflowed;
+
+        Batch(int capacity) {
+            this.addresses = new int[capacity];
+            this.sizes = new int[capacity];
+            this.processIds = new String[capacity];
+        }
+
+        void add(int address, int size, String processId) {
+            if (count == addresses.length) {
+                overflowed = true;
+                return;
+            }
+            addresses[count] = address;
+            sizes[count] = size;
+            processIds[count] = processId;
+            count++;
+        }
+
+        void clear() {
+            Arrays.fill(processIds, 0, count, null);
+            count = 0;
+            overflowed = false;
+        }
+
+        public int size() { return count; }
+        public boolean isEmpty() { return count == 0 && !overflowed; }
+        public boolean isOverflowed() { return overflowed; }
+        public int getAddress(int index) { return addresses[index]; }
+        public int getSize(int index) { return Math.abs(sizes[index]); }
+        public boolean isAllocation(int index) { return sizes[index] > 0; }
+        public String getProcessId(int index) { return processIds[index]; }
+    }
+}
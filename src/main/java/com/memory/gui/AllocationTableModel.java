@@ -0,0 +1,102 @@
+package com.memory.gui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Allocated blocks in no particular order. Rows are added and removed in O(1) from the refresh
+// thread (a removed row is replaced by the last one); the table only sees the changes when
+// publish() runs on the event dispatch thread, once per frame.
+public class AllocationTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Address", "Size", "Process ID"};
+
+    private int[] addresses;
+    private int[] sizes;
+    private String[] processIds;
+    private final Map<Integer, Integer> rowOf;
+    private int count;
+    private int publishedCount;
+    private boolean changed;
+
+    public AllocationTableModel() {
+        this.addresses = new int[64];
+        this.sizes = new int[64];
+        this.processIds = new String[64];
+        this.rowOf = new HashMap<>();
+    }
+
+    public synchronized void add(int address, int size, String processId) {
+        if (count == addresses.length) {
+            addresses = Arrays.copyOf(addresses, count * 2);
+            sizes = Arrays.copyOf(sizes, count * 2);
+            processIds = Arrays.copyOf(processIds, count * 2);
+        }
+        addresses[count] = address;
+        sizes[count] = size;
+        processIds[count] = processId;
+        rowOf.put(address, count);
+        count++;
+        changed = true;
+    }
+
+    public synchronized void remove(int address) {
+        Integer row = rowOf.remove(address);
+        if (row == null) {
+            return;
+        }
+        count--;
+        if (row != count) {
+            addresses[row] = addresses[count];
+            sizes[row] = sizes[count];
+            processIds[row] = processIds[count];
+            rowOf.put(addresses[row], row);
+        }
+        processIds[count] = null;
+        changed = true;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(processIds, 0, count, null);
+        rowOf.clear();
+        count = 0;
+        changed = true;
+    }
+
+    // Makes the rows changed since the last call visible to the table; event dispatch thread only
+    public void publish() {
+        synchronized (this) {
+            if (!changed) {
+                return;
+            }
+            publishedCount = count;
+            changed = false;
+        }
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() { return publishedCount; }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    // Rows can shrink between two publishes; rows past the live end read as empty until then
+    @Override
+    public synchronized Object getValueAt(int row, int column) {
+        if (row >= count) {
+            return null;
+        }
+        switch (column) {
+            case 0:
+                return addresses[row];
+            case 1:
+                return sizes[row];
+            default:
+                return processIds[row];
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.memory.gui;
+
+import com.memory.model.BuddySystem;
+import com.memory.model.MemoryBlock;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.Iterator;
+
+// Blocks of one address range, in address order. The range is walked lazily with
+// BuddySystem.blocks, so the cost depends on the range shown and not on the arena; at most
+// MAX_ROWS blocks are listed. showRange, refresh and rangeChanged copy the block values into
+// immutable rows; they are called from a single thread other than the event dispatch thread,
+// with the allocator's lock held. publish() then shows the rows on the event dispatch thread, so the table
+// never reads blocks the allocator is changing and never waits for its lock.
+public class BlockRangeTableModel extends AbstractTableModel {
+    public static final int MAX_ROWS = 4096;
+    private static final String[] COLUMNS = {"Address", "Size", "Status", "Process ID"};
+
+    private final BuddySystem buddySystem;
+    private volatile Rows pending;
+    private Rows rows;
+    private int rangeStart;
+    private int rangeEnd;
+
+    public BlockRangeTableModel(BuddySystem buddySystem) {
+        this.buddySystem = buddySystem;
+        this.rows = new Rows(0, 0, 0, false, new int[0], new int[0], new boolean[0], new String[0]);
+    }
+
+    public void showRange(int start, int end) {
+        rangeStart = start;
+        rangeEnd = end;
+        refresh();
+    }
+
+    public void refresh() {
+        int[] addresses = new int[16];
+        int[] sizes = new int[16];
+        boolean[] allocated = new boolean[16];
+        String[] processIds = new String[16];
+        int count = 0;
+        boolean truncated = false;
+        Iterator<MemoryBlock> blocks = buddySystem.blocks(rangeStart, rangeEnd);
+        while (blocks.hasNext()) {
+            if (count == MAX_ROWS) {
+                truncated = true;
+                break;
+            }
+            if (count == addresses.length) {
+                addresses = Arrays.copyOf(addresses, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+                allocated = Arrays.copyOf(allocated, count * 2);
+                processIds = Arrays.copyOf(processIds, count * 2);
+            }
+            MemoryBlock block = blocks.next();
+            addresses[count] = block.getStartAddress();
+            sizes[count] = block.getSize();
+            allocated[count] = block.isAllocated();
+            processIds[count] = block.getProcessId();
+            count++;
+        }
+        pending = new Rows(rangeStart, rangeEnd, count, truncated, addresses, sizes, allocated, processIds);
+    }
+
+    // Only refreshes when the changed addresses [start, end) overlap the range on display
+    public void rangeChanged(int start, int end) {
+        if (start < rangeEnd && end > rangeStart) {
+            refresh();
+        }
+    }
+
+    // Shows the rows of the last refresh; event dispatch thread only
+    public void publish() {
+        Rows latest = pending;
+        if (latest == null) {
+            return;
+        }
+        pending = null;
+        rows = latest;
+        fireTableDataChanged();
+    }
+
+    // The range and truncation of the rows on display
+    public int getRangeStart() { return rows.start; }
+    public int getRangeEnd() { return rows.end; }
+    public boolean isTruncated() { return rows.truncated; }
+
+    @Override
+    public int getRowCount() { return rows.count; }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case 0:
+                return rows.addresses[row];
+            case 1:
+                return rows.sizes[row];
+            case 2:
+                return rows.allocated[row] ? "Allocated" : "Free";
+            default:
+                return rows.processIds[row];
+        }
+    }
+
+    private static final class Rows {
+        final int start;
+        final int end;
+        final int count;
+        final boolean truncated;
+        final int[] addresses;
+        final int[] sizes;
+        final boolean[] allocated;
+        final String[] processIds;
+
+        Rows(int start, int end, int count, boolean truncated, int[] addresses, int[] sizes,
+             boolean[] allocated, String[] processIds) {
+            this.start = start;
+            this.end = end;
+            this.count = count;
+            this.truncated = truncated;
+            this.addresses = addresses;
+            this.sizes = sizes;
+            this.allocated = allocated;
+            this.processIds = processIds;
+        }
+    }
+}
@@ -4,18 +4,43 @@ import com.memory.model.BuddySystem;
 import com.memory.model.MemoryBlock;
 import javax.swing.*;
 import javax.swing.border.*;
-import javax.swing.table.*;
 import java.awt.*;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Operator console for a BuddySystem. The view follows the allocator's event stream rather than
+// the buttons, so it can be attached to an allocator driven by another workload, provided that
+// workload synchronizes on the BuddySystem. Events are buffered on the allocator thread, applied
+// to the models on a background thread and shown at most MAX_FPS times per second.
 
 public class BuddySystemGUI extends JFrame {
     private final BuddySystem buddySystem;
     private JTextField sizeField;
     private JTextField processIdField;
     private JTextField addressField;
-    private JTextArea memoryMapArea;
-    private DefaultTableModel tableModel;
+    private MemoryMapPanel memoryMapPanel;
+    private BlockRangeTableModel blockRangeModel;
+    private JLabel rangeLabel;
+    private AllocationTableModel tableModel;
     private JPanel statisticsPanel;
+    private final JLabel[] statisticLabels = new JLabel[9];
+
+    // Live refresh
+    private static final int MAX_FPS = 30;
+    private static final int EVENT_BUFFER_CAPACITY = 1 << 16;
+    private final AllocationEventBuffer eventBuffer;
+    private final ScheduledExecutorService refreshExecutor;
+    private final AtomicBoolean frameQueued;
+    private final Object frameLock = new Object();
+    // Address range changed since the last frame, empty when dirtyStart >= dirtyEnd
+    private int dirtyStart = Integer.MAX_VALUE;
+    private int dirtyEnd;
+    private boolean dirtyAll;
+    // Latest statistics read by the refresh thread, shown by the next frame
+    private volatile Statistics pendingStatistics;
 
     // GUI Constants
     private static final Color PANEL_BACKGROUND = new Color(240, 240, 240);
@@ -25,9 +50,35 @@ public class BuddySystemGUI extends JFrame {
     private static final Font HEADER_FONT = new Font("Segoe UI", Font.BOLD, 12);
 
     public BuddySystemGUI(int totalMemorySize) {
-        buddySystem = new BuddySystem(totalMemorySize);
+        this(new BuddySystem(totalMemorySize));
+    }
+
+    public BuddySystemGUI(BuddySystem buddySystem) {
+        this.buddySystem = buddySystem;
+        this.eventBuffer = new AllocationEventBuffer(EVENT_BUFFER_CAPACITY);
+        this.frameQueued = new AtomicBoolean();
+        this.refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "buddy-gui-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
         initializeGUI();
         customizeUI();
+
+        synchronized (buddySystem) {
+            buddySystem.addAllocationListener(eventBuffer);
+            resynchronize();
+        }
+        refreshExecutor.execute(this::captureStatistics);
+        long period = 1000 / MAX_FPS;
+        refreshExecutor.scheduleAtFixedRate(this::refreshTick, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void dispose() {
+        refreshExecutor.shutdownNow();
+        buddySystem.removeAllocationListener(eventBuffer);
+        super.dispose();
     }
 
     private void initializeGUI() {
@@ -72,8 +123,9 @@ public class BuddySystemGUI extends JFrame {
         statisticsPanel.setLayout(new BoxLayout(statisticsPanel, BoxLayout.Y_AXIS));
         statisticsPanel.setBorder(createTitledBorder("Statistics"));
         leftPanel.add(statisticsPanel);
-
-        updateStatistics();
+        for (int i = 0; i < statisticLabels.length; i++) {
+            statisticLabels[i] = addStatisticLabel();
+        }
         return leftPanel;
     }
 
@@ -128,23 +180,45 @@ public class BuddySystemGUI extends JFrame {
         JPanel centerPanel = new JPanel(new BorderLayout(5, 5));
         centerPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 10));
 
-        // Memory Map Header
+        // Memory Map Header with zoom controls
+        JPanel headerPanel = new JPanel(new BorderLayout());
         JLabel headerLabel = new JLabel("Memory Map");
         headerLabel.setFont(HEADER_FONT);
         headerLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 5, 0));
-        centerPanel.add(headerLabel, BorderLayout.NORTH);
-
-        // Memory Map Area
-        memoryMapArea = new JTextArea();
-        memoryMapArea.setEditable(false);
-        memoryMapArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        memoryMapArea.setBackground(Color.WHITE);
-
-        JScrollPane scrollPane = new JScrollPane(memoryMapArea);
-        scrollPane.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
-        centerPanel.add(scrollPane, BorderLayout.CENTER);
-
-        updateMemoryMap();
+        headerPanel.add(headerLabel, BorderLayout.WEST);
+
+        JPanel zoomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        JButton zoomInButton = createStyledButton("+");
+        JButton zoomOutButton = createStyledButton("-");
+        zoomInButton.addActionListener(e -> memoryMapPanel.setZoom(memoryMapPanel.getZoom() - 1));
+        zoomOutButton.addActionListener(e -> memoryMapPanel.setZoom(memoryMapPanel.getZoom() + 1));
+        zoomPanel.add(zoomOutButton);
+        zoomPanel.add(zoomInButton);
+        headerPanel.add(zoomPanel, BorderLayout.EAST);
+        centerPanel.add(headerPanel, BorderLayout.NORTH);
+
+        // Heat map of the whole arena; only the visible cells are painted
+        memoryMapPanel = new MemoryMapPanel(buddySystem.getTotalSize());
+        memoryMapPanel.setSelectionListener(this::showBlockRange);
+        JScrollPane mapScrollPane = new JScrollPane(memoryMapPanel);
+        mapScrollPane.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
+
+        // Blocks of the selected cell
+        blockRangeModel = new BlockRangeTableModel(buddySystem);
+        JTable blockTable = new JTable(blockRangeModel);
+        styleTable(blockTable);
+        JScrollPane blockScrollPane = new JScrollPane(blockTable);
+        rangeLabel = new JLabel();
+        rangeLabel.setFont(MAIN_FONT);
+        JPanel blockPanel = new JPanel(new BorderLayout(0, 5));
+        blockPanel.add(rangeLabel, BorderLayout.NORTH);
+        blockPanel.add(blockScrollPane, BorderLayout.CENTER);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, mapScrollPane, blockPanel);
+        splitPane.setResizeWeight(0.6);
+        centerPanel.add(splitPane, BorderLayout.CENTER);
+
+        showBlockRange(0, memoryMapPanel.getCellBytes());
         return centerPanel;
     }
 
@@ -153,13 +227,7 @@ public class BuddySystemGUI extends JFrame {
         bottomPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
 
         // Create table
-        String[] columnNames = {"Address", "Size", "Process ID"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new AllocationTableModel();
 
         JTable allocationTable = new JTable(tableModel);
         styleTable(allocationTable);
@@ -181,10 +249,13 @@ public class BuddySystemGUI extends JFrame {
                 return;
             }
 
-            Integer address = buddySystem.allocate(size, processId);
+            Integer address;
+            synchronized (buddySystem) {
+                address = buddySystem.allocate(size, processId);
+            }
             if (address != null) {
+                clearInputFields();
                 showSuccess("Memory allocated at address: " + address);
-                updateGUI();
             } else {
                 showError("Failed to allocate memory - not enough space");
             }
@@ -197,9 +268,13 @@ public class BuddySystemGUI extends JFrame {
         try {
             int address = Integer.parseInt(addressField.getText());
 
-            if (buddySystem.deallocate(address)) {
+            boolean deallocated;
+            synchronized (buddySystem) {
+                deallocated = buddySystem.deallocate(address);
+            }
+            if (deallocated) {
+                clearInputFields();
                 showSuccess("Memory deallocated successfully");
-                updateGUI();
             } else {
                 showError("Failed to deallocate memory - invalid address");
             }
@@ -208,51 +283,139 @@ public class BuddySystemGUI extends JFrame {
         }
     }
 
-    private void updateGUI() {
-        updateMemoryMap();
-        updateStatistics();
-        updateAllocationTable();
-        clearInputFields();
-    }
+    // Runs on the refresh thread: applies the events buffered since the last tick to the models,
+    // reads the statistics and block rows under the allocator's lock and queues a frame unless one
+    // is still pending, so bursts collapse into a single repaint. The event dispatch thread never
+    // takes the allocator's lock; it only shows what was captured here.
+    private void refreshTick() {
+        AllocationEventBuffer.Batch batch = eventBuffer.take();
+        if (batch.isEmpty()) {
+            return;
+        }
 
-    private void updateMemoryMap() {
-        StringBuilder sb = new StringBuilder();
-        for (MemoryBlock block : buddySystem.getAllBlocks()) {
-            sb.append(String.format("Address: %6d | Size: %6d | Status: %s%n",
-                    block.getStartAddress(),
-                    block.getSize(),
-                    block.isAllocated() ?
-                            "Allocated (Process: " + block.getProcessId() + ")" :
-                            "Free"));
+        if (batch.isOverflowed()) {
+            synchronized (buddySystem) {
+                resynchronize();
+                pendingStatistics = new Statistics(buddySystem);
+                blockRangeModel.refresh();
+            }
+        } else {
+            int start = Integer.MAX_VALUE;
+            int end = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                int address = batch.getAddress(i);
+                int size = batch.getSize(i);
+                if (batch.isAllocation(i)) {
+                    memoryMapPanel.blockAllocated(address, size);
+                    tableModel.add(address, size, batch.getProcessId(i));
+                } else {
+                    memoryMapPanel.blockFreed(address, size);
+                    tableModel.remove(address);
+                }
+                start = Math.min(start, address);
+                end = Math.max(end, address + size);
+            }
+            synchronized (frameLock) {
+                dirtyStart = Math.min(dirtyStart, start);
+                dirtyEnd = Math.max(dirtyEnd, end);
+            }
+            synchronized (buddySystem) {
+                pendingStatistics = new Statistics(buddySystem);
+                blockRangeModel.rangeChanged(start, end);
+            }
         }
-        memoryMapArea.setText(sb.toString());
+        queueFrame();
     }
 
-    private void updateStatistics() {
-        statisticsPanel.removeAll();
+    // Runs on the refresh thread
+    private void captureStatistics() {
+        synchronized (buddySystem) {
+            pendingStatistics = new Statistics(buddySystem);
+        }
+        queueFrame();
+    }
 
-        addStatisticLabel("Total Memory: " + buddySystem.getTotalSize());
-        addStatisticLabel("Allocated Memory: " + buddySystem.getTotalAllocated());
-        addStatisticLabel("Free Memory: " + buddySystem.getFreeMemory());
-        addStatisticLabel("Peak Usage: " + buddySystem.getPeakMemoryUsage());
-        addStatisticLabel("Allocation Count: " + buddySystem.getAllocationCount());
-        addStatisticLabel("Fragmentation Count: " + buddySystem.getFragmentationCount());
+    private void queueFrame() {
+        if (!frameQueued.getAndSet(true)) {
+            SwingUtilities.invokeLater(this::renderFrame);
+        }
+    }
 
-        statisticsPanel.revalidate();
-        statisticsPanel.repaint();
+    // Rebuilds the models from the allocator after events were lost; the caller holds its lock,
+    // so no event can slip in between the snapshot and clearing the buffer
+    private void resynchronize() {
+        eventBuffer.clear();
+        memoryMapPanel.clear();
+        tableModel.clear();
+        Iterator<MemoryBlock> blocks = buddySystem.blocks(0, buddySystem.getTotalSize());
+        while (blocks.hasNext()) {
+            MemoryBlock block = blocks.next();
+            if (block.isAllocated()) {
+                memoryMapPanel.blockAllocated(block.getStartAddress(), block.getSize());
+                tableModel.add(block.getStartAddress(), block.getSize(), block.getProcessId());
+            }
+        }
+        synchronized (frameLock) {
+            dirtyAll = true;
+        }
     }
 
-    private void updateAllocationTable() {
-        tableModel.setRowCount(0);
-        Map<String, MemoryBlock> allocations = buddySystem.getAllocatedBlocksByProcess();
+    // Runs on the event dispatch thread, at most MAX_FPS times per second
+    private void renderFrame() {
+        frameQueued.set(false);
+        int start;
+        int end;
+        boolean all;
+        synchronized (frameLock) {
+            start = dirtyStart;
+            end = dirtyEnd;
+            all = dirtyAll;
+            dirtyStart = Integer.MAX_VALUE;
+            dirtyEnd = 0;
+            dirtyAll = false;
+        }
 
-        for (MemoryBlock block : allocations.values()) {
-            tableModel.addRow(new Object[]{
-                    block.getStartAddress(),
-                    block.getSize(),
-                    block.getProcessId()
-            });
+        if (all) {
+            memoryMapPanel.repaint();
+        } else if (start < end) {
+            memoryMapPanel.repaintRange(start, end);
         }
+        tableModel.publish();
+        Statistics statistics = pendingStatistics;
+        if (statistics != null) {
+            showStatistics(statistics);
+        }
+        blockRangeModel.publish();
+        updateRangeLabel();
+    }
+
+    // The rows are read on the refresh thread, which owns the range of the block table
+    private void showBlockRange(int start, int end) {
+        refreshExecutor.execute(() -> {
+            synchronized (buddySystem) {
+                blockRangeModel.showRange(start, end);
+            }
+            queueFrame();
+        });
+    }
+
+    private void updateRangeLabel() {
+        rangeLabel.setText(String.format("Blocks in [%d, %d)%s",
+                blockRangeModel.getRangeStart(), blockRangeModel.getRangeEnd(),
+                blockRangeModel.isTruncated() ? " - first " + BlockRangeTableModel.MAX_ROWS + " shown" : ""));
+    }
+
+    // Only sets the text of the existing labels, so the panel is not laid out again
+    private void showStatistics(Statistics statistics) {
+        statisticLabels[0].setText("Total Memory: " + statistics.totalSize);
+        statisticLabels[1].setText("Allocated Memory: " + statistics.totalAllocated);
+        statisticLabels[2].setText("Free Memory: " + statistics.freeMemory);
+        statisticLabels[3].setText("Peak Usage: " + statistics.peakMemoryUsage);
+        statisticLabels[4].setText("Allocation Count: " + statistics.allocationCount);
+        statisticLabels[5].setText("Fragmentation Count: " + statistics.fragmentationCount);
+        statisticLabels[6].setText("Largest Free Block: " + statistics.largestFreeBlock);
+        statisticLabels[7].setText(String.format("Internal Fragmentation: %.1f%%", statistics.internalFragmentation * 100));
+        statisticLabels[8].setText(String.format("External Fragmentation: %.1f%%", statistics.externalFragmentation * 100));
     }
 
     // Utility methods
@@ -267,12 +430,13 @@ public class BuddySystemGUI extends JFrame {
         panel.add(field, gbc);
     }
 
-    private void addStatisticLabel(String text) {
-        JLabel label = new JLabel(text);
+    private JLabel addStatisticLabel() {
+        JLabel label = new JLabel();
         label.setFont(MAIN_FONT);
         label.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
         label.setAlignmentX(Component.LEFT_ALIGNMENT);
         statisticsPanel.add(label);
+        return label;
     }
 
     private void clearInputFields() {
@@ -329,4 +493,30 @@ public class BuddySystemGUI extends JFrame {
             gui.setVisible(true);
         });
     }
-}
\ No newline at end of file
+
+    // Counters read together under the allocator's lock on the refresh thread, shown on the
+    // event dispatch thread
+    private static final class Statistics {
+        final int totalSize;
+        final int totalAllocated;
+        final int freeMemory;
+        final int peakMemoryUsage;
+        final int allocationCount;
+        final int fragmentationCount;
+        final int largestFreeBlock;
+        final double internalFragmentation;
+        final double externalFragmentation;
+
+        Statistics(BuddySystem buddySystem) {
+            totalSize = buddySystem.getTotalSize();
+            totalAllocated = buddySystem.getTotalAllocated();
+            freeMemory = buddySystem.getFreeMemory();
+            peakMemoryUsage = buddySystem.getPeakMemoryUsage();
+            allocationCount = buddySystem.getAllocationCount();
+            fragmentationCount = buddySystem.getFragmentationCount();
+            largestFreeBlock = buddySystem.getLargestFreeBlock();
+            internalFragmentation = buddySystem.getInternalFragmentation();
+            externalFragmentation = buddySystem.getExternalFragmentation();
+        }
+    }
+}
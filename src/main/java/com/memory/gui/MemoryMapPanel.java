@@ -0,0 +1,245 @@
+package com.memory.gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+// Heat map of the arena. Every cell covers a fixed address range and is shaded by how much of it
+// is allocated. Usage is kept per cell for every zoom level and updated from the allocate and
+// free events, so a change only touches and repaints the cells it covers. Painting is limited to
+// the clip, which inside a scroll pane is the visible part of the map. Usage may be updated from
+// any thread; everything else runs on the event dispatch thread.
+public class MemoryMapPanel extends JComponent implements Scrollable {
+    private static final int MAX_FINE_CELLS = 1 << 16;
+    private static final int CELL_SIZE = 10;
+    private static final Color[] PALETTE = createPalette(16);
+    private static final Color SELECTION_COLOR = new Color(230, 120, 0);
+
+    private final int totalSize;
+    private final int fineCellShift;
+    // usage[z][i] = allocated bytes in cell i when a cell covers (1 << (fineCellShift + z)) bytes
+    private final long[][] usage;
+    private int zoom;
+    private int selectedCell = -1;
+    private BiConsumer<Integer, Integer> selectionListener;
+
+    public MemoryMapPanel(int totalSize) {
+        this.totalSize = totalSize;
+        int arenaOrder = Integer.numberOfTrailingZeros(totalSize);
+        this.fineCellShift = Math.max(0, arenaOrder - Integer.numberOfTrailingZeros(MAX_FINE_CELLS));
+        int levels = arenaOrder - fineCellShift + 1;
+        this.usage = new long[levels][];
+        for (int level = 0; level < levels; level++) {
+            usage[level] = new long[totalSize >>> (fineCellShift + level)];
+        }
+        setBackground(Color.WHITE);
+        setOpaque(true);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0) {
+                    selectCell(cell);
+                }
+            }
+        });
+    }
+
+    private static Color[] createPalette(int shades) {
+        Color[] palette = new Color[shades + 1];
+        for (int i = 0; i <= shades; i++) {
+            float fill = (float) i / shades;
+            palette[i] = new Color(
+                    Math.round(235 - 200 * fill),
+                    Math.round(245 - 150 * fill),
+                    Math.round(235 - 20 * fill));
+        }
+        return palette;
+    }
+
+    // Called with [start, end) of the cell the user clicked
+    public void setSelectionListener(BiConsumer<Integer, Integer> selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
+    public void blockAllocated(int address, int size) {
+        updateUsage(address, size, 1);
+    }
+
+    public void blockFreed(int address, int size) {
+        updateUsage(address, size, -1);
+    }
+
+    // Blocks are power-of-two sized and aligned, so at every level they either fill whole cells
+    // or sit inside a single one
+    private void updateUsage(int address, int size, int sign) {
+        synchronized (usage) {
+            applyUsage(address, size, sign);
+        }
+    }
+
+    private void applyUsage(int address, int size, int sign) {
+        for (int level = 0; level < usage.length; level++) {
+            int shift = fineCellShift + level;
+            long[] cells = usage[level];
+            if (size >= 1 << shift) {
+                long cellBytes = 1L << shift;
+                for (int cell = address >>> shift, last = (address + size - 1) >>> shift; cell <= last; cell++) {
+                    cells[cell] += sign * cellBytes;
+                }
+            } else {
+                cells[address >>> shift] += sign * size;
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (usage) {
+            for (long[] cells : usage) {
+                Arrays.fill(cells, 0);
+            }
+        }
+    }
+
+    public int getZoom() { return zoom; }
+    public int getMaxZoom() { return usage.length - 1; }
+
+    // Each zoom step doubles the bytes covered by one cell
+    public void setZoom(int zoom) {
+        int clamped = Math.max(0, Math.min(getMaxZoom(), zoom));
+        if (clamped == this.zoom) {
+            return;
+        }
+        if (selectedCell >= 0) {
+            int start = selectedCell << (fineCellShift + this.zoom);
+            selectedCell = start >>> (fineCellShift + clamped);
+        }
+        this.zoom = clamped;
+        revalidate();
+        repaint();
+    }
+
+    public int getCellBytes() { return 1 << (fineCellShift + zoom); }
+
+    private int cellCount() { return usage[zoom].length; }
+
+    private int columns() {
+        return Math.max(1, getWidth() / CELL_SIZE);
+    }
+
+    private int cellAt(int x, int y) {
+        int column = x / CELL_SIZE;
+        if (column >= columns()) {
+            return -1;
+        }
+        int cell = (y / CELL_SIZE) * columns() + column;
+        return cell < cellCount() ? cell : -1;
+    }
+
+    private void selectCell(int cell) {
+        int previous = selectedCell;
+        selectedCell = cell;
+        if (previous >= 0) {
+            repaintCells(previous, previous);
+        }
+        repaintCells(cell, cell);
+        if (selectionListener != null) {
+            int shift = fineCellShift + zoom;
+            selectionListener.accept(cell << shift, (cell + 1) << shift);
+        }
+    }
+
+    // Repaints the cells covering [start, end)
+    public void repaintRange(int start, int end) {
+        int shift = fineCellShift + zoom;
+        repaintCells(start >>> shift, (end - 1) >>> shift);
+    }
+
+    // Repaints the bounding rows of a run of cells; Swing clips it to what is visible
+    private void repaintCells(int firstCell, int lastCell) {
+        int columns = columns();
+        int firstRow = firstCell / columns;
+        int lastRow = lastCell / columns;
+        repaint(0, firstRow * CELL_SIZE, columns * CELL_SIZE, (lastRow - firstRow + 1) * CELL_SIZE);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        long[] cells = usage[zoom];
+        long cellBytes = getCellBytes();
+        int columns = columns();
+        int firstRow = clip.y / CELL_SIZE;
+        int lastRow = (clip.y + clip.height - 1) / CELL_SIZE;
+        int firstColumn = clip.x / CELL_SIZE;
+        int lastColumn = Math.min(columns - 1, (clip.x + clip.width - 1) / CELL_SIZE);
+
+        synchronized (usage) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int cell = row * columns + column;
+                    if (cell >= cells.length) {
+                        return;
+                    }
+                    int shade = (int) ((cells[cell] * (PALETTE.length - 1) + cellBytes - 1) / cellBytes);
+                    g.setColor(PALETTE[shade]);
+                    g.fillRect(column * CELL_SIZE, row * CELL_SIZE, CELL_SIZE - 1, CELL_SIZE - 1);
+                    if (cell == selectedCell) {
+                        g.setColor(SELECTION_COLOR);
+                        g.drawRect(column * CELL_SIZE, row * CELL_SIZE, CELL_SIZE - 2, CELL_SIZE - 2);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int columns = getWidth() > 0 ? columns() : 64;
+        int rows = (cellCount() + columns - 1) / columns;
+        return new Dimension(columns * CELL_SIZE, rows * CELL_SIZE);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(64 * CELL_SIZE, 20 * CELL_SIZE);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return CELL_SIZE;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return Math.max(CELL_SIZE, visibleRect.height - CELL_SIZE);
+    }
+
+    // Width follows the viewport so the row count can be derived from it
+    @Override
+    public boolean getScrollableTracksViewportWidth() { return true; }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() { return false; }
+
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        boolean resized = width != getWidth();
+        super.setBounds(x, y, width, height);
+        if (resized) {
+            revalidate();
+        }
+    }
+
+    public int getTotalSize() { return totalSize; }
+}
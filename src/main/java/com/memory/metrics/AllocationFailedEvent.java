@@ -0,0 +1,29 @@
+package com.memory.metrics;
+
+import jdk.jfr.*;
+
+@Name("com.memory.AllocationFailed")
+@Label("Allocation Failed")
+@Category({"Memory", "Buddy System"})
+@Description("An allocate call that returned null")
+@StackTrace(true)
+public class AllocationFailedEvent extends Event {
+    @Label("Requested Size")
+    @DataAmount
+    public long requestedSize;
+
+    @Label("Block Size")
+    @DataAmount
+    public long blockSize;
+
+    @Label("Reason")
+    public String reason;
+
+    @Label("Free Memory")
+    @DataAmount
+    public long freeMemory;
+
+    @Label("Largest Free Block")
+    @DataAmount
+    public long largestFreeBlock;
+}
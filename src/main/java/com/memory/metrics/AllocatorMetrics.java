@@ -0,0 +1,138 @@
+package com.memory.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hot-path instrumentation for an allocator. Everything is off by default; while disabled the
+// allocator only pays for one volatile read per operation.
+public class AllocatorMetrics {
+    private final int maxOrder;
+    private volatile boolean enabled;
+    private volatile long slowThresholdNanos;
+
+    private final LatencyHistogram allocationLatency;
+    private final LatencyHistogram deallocationLatency;
+    private final AtomicLongArray splitsPerOrder;
+    private final AtomicLongArray mergesPerOrder;
+    // Successful requests bucketed by the order they were rounded up to
+    private final AtomicLongArray allocationsPerOrder;
+    // Failed requests bucketed by the order they asked for; the last bucket also holds too-large requests
+    private final AtomicLongArray failuresPerOrder;
+    private final LongAdder[] failuresPerReason;
+    private final LongAdder successfulAllocations;
+    private volatile long lastFailedSize;
+    private volatile FailureReason lastFailureReason;
+
+    public AllocatorMetrics(int maxOrder) {
+        this.maxOrder = maxOrder;
+        this.slowThresholdNanos = 100_000;
+        this.allocationLatency = new LatencyHistogram();
+        this.deallocationLatency = new LatencyHistogram();
+        this.splitsPerOrder = new AtomicLongArray(maxOrder + 1);
+        this.mergesPerOrder = new AtomicLongArray(maxOrder + 1);
+        this.allocationsPerOrder = new AtomicLongArray(maxOrder + 1);
+        this.failuresPerOrder = new AtomicLongArray(maxOrder + 2);
+        this.failuresPerReason = new LongAdder[FailureReason.values().length];
+        for (int i = 0; i < failuresPerReason.length; i++) {
+            failuresPerReason[i] = new LongAdder();
+        }
+        this.successfulAllocations = new LongAdder();
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getSlowThresholdNanos() { return slowThresholdNanos; }
+    public void setSlowThresholdNanos(long slowThresholdNanos) { this.slowThresholdNanos = slowThresholdNanos; }
+
+    public void recordAllocation(int size, int address, long nanos) {
+        successfulAllocations.increment();
+        allocationsPerOrder.incrementAndGet(size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1));
+        allocationLatency.record(nanos);
+        if (nanos >= slowThresholdNanos) {
+            emitSlowEvent("allocate", size, address, nanos);
+        }
+    }
+
+    public void recordDeallocation(int size, int address, long nanos) {
+        deallocationLatency.record(nanos);
+        if (nanos >= slowThresholdNanos) {
+            emitSlowEvent("deallocate", size, address, nanos);
+        }
+    }
+
+    public void recordSplit(int order) {
+        splitsPerOrder.incrementAndGet(order);
+    }
+
+    public void recordMerge(int order) {
+        mergesPerOrder.incrementAndGet(order);
+    }
+
+    public void recordFailure(long requestedSize, int order, FailureReason reason,
+                              long freeMemory, long largestFreeBlock) {
+        failuresPerOrder.incrementAndGet(Math.min(order, maxOrder + 1));
+        failuresPerReason[reason.ordinal()].increment();
+        lastFailedSize = requestedSize;
+        lastFailureReason = reason;
+
+        AllocationFailedEvent event = new AllocationFailedEvent();
+        if (event.shouldCommit()) {
+            event.requestedSize = requestedSize;
+            event.blockSize = order < 63 ? 1L << order : Long.MAX_VALUE;
+            event.reason = reason.name();
+            event.freeMemory = freeMemory;
+            event.largestFreeBlock = largestFreeBlock;
+            event.commit();
+        }
+    }
+
+    private void emitSlowEvent(String operation, int size, int address, long nanos) {
+        SlowAllocationEvent event = new SlowAllocationEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.size = size;
+            event.address = address;
+            event.durationNanos = nanos;
+            event.commit();
+        }
+    }
+
+    public LatencyHistogram getAllocationLatency() { return allocationLatency; }
+    public LatencyHistogram getDeallocationLatency() { return deallocationLatency; }
+    public long getSplitCount(int order) { return splitsPerOrder.get(order); }
+    public long getMergeCount(int order) { return mergesPerOrder.get(order); }
+    public long getAllocationCount(int order) { return allocationsPerOrder.get(order); }
+    public int getMaxOrder() { return maxOrder; }
+    public long getFailureCount(int order) { return failuresPerOrder.get(Math.min(order, maxOrder + 1)); }
+    public long getFailureCount(FailureReason reason) { return failuresPerReason[reason.ordinal()].sum(); }
+    public long getSuccessfulAllocations() { return successfulAllocations.sum(); }
+    public long getLastFailedSize() { return lastFailedSize; }
+    public FailureReason getLastFailureReason() { return lastFailureReason; }
+
+    public long getFailedAllocations() {
+        long failures = 0;
+        for (LongAdder adder : failuresPerReason) {
+            failures += adder.sum();
+        }
+        return failures;
+    }
+
+    public void reset() {
+        allocationLatency.reset();
+        deallocationLatency.reset();
+        for (int order = 0; order <= maxOrder; order++) {
+            splitsPerOrder.set(order, 0);
+            mergesPerOrder.set(order, 0);
+            allocationsPerOrder.set(order, 0);
+            failuresPerOrder.set(order, 0);
+        }
+        failuresPerOrder.set(maxOrder + 1, 0);
+        for (LongAdder adder : failuresPerReason) {
+            adder.reset();
+        }
+        successfulAllocations.reset();
+        lastFailedSize = 0;
+        lastFailureReason = null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.memory.metrics;
+
+public enum FailureReason {
+    // The request is larger than the whole arena
+    TOO_LARGE,
+    // Less free memory than the rounded-up block size
+    OUT_OF_MEMORY,
+    // Enough free memory in total, but no free block of the needed order
+    FRAGMENTED,
+    // The owning process would exceed its quota
+    QUOTA_EXCEEDED
+}
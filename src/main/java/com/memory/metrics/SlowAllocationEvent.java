@@ -0,0 +1,24 @@
+package com.memory.metrics;
+
+import jdk.jfr.*;
+
+@Name("com.memory.SlowAllocation")
+@Label("Slow Allocation")
+@Category({"Memory", "Buddy System"})
+@Description("An allocate or deallocate call that took longer than the configured threshold")
+@StackTrace(true)
+public class SlowAllocationEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    @Label("Address")
+    public long address;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long durationNanos;
+}
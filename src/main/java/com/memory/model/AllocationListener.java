@@ -0,0 +1,9 @@
+package com.memory.model;
+
+// Receives every block handed out or returned by a BuddySystem. Callbacks run synchronously on
+// the thread that changed the allocator, while it is in the middle of the operation, so they
+// must be quick and must not call back into the allocator.
+public interface AllocationListener {
+    void blockAllocated(int address, int size, String processId);
+    void blockFreed(int address, int size, String processId);
+}
@@ -0,0 +1,8 @@
+package com.memory.model;
+
+// Copies a block's contents when compaction relocates it. Called after the target block has
+// been reserved; the source block is already free but its memory is untouched until the next
+// allocation.
+public interface BlockMover {
+    void move(int fromAddress, int toAddress, int size);
+}
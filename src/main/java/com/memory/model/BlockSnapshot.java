@@ -0,0 +1,113 @@
+package com.memory.model;
+
+// Immutable copy of the block layout in address order, taken at one version of a BuddySystem.
+// It holds primitive arrays only, so other threads can walk it while the allocator keeps
+// changing; isCurrent() tells whether the allocator has changed since. The layout is kept in
+// chunks of address space, each holding the blocks that start in it, and snapshots share the
+// chunks that did not change between them.
+public class BlockSnapshot {
+    private final BuddySystem source;
+    private final long version;
+    private final int chunkShift;
+    private final Chunk[] chunks;
+    // Index of the first block of every chunk; the last entry is the block count
+    private final int[] firstIndex;
+
+    BlockSnapshot(BuddySystem source, long version, int chunkShift, Chunk[] chunks) {
+        this.source = source;
+        this.version = version;
+        this.chunkShift = chunkShift;
+        this.chunks = chunks;
+        this.firstIndex = new int[chunks.length + 1];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            firstIndex[chunk + 1] = firstIndex[chunk] + chunks[chunk].addresses.length;
+        }
+    }
+
+    public long getVersion() { return version; }
+
+    // Reads the allocator's version under its lock, so any thread may ask
+    public boolean isCurrent() {
+        synchronized (source) {
+            return source.getVersion() == version;
+        }
+    }
+
+    Chunk[] getChunks() { return chunks; }
+
+    public int size() { return firstIndex[chunks.length]; }
+
+    public int getAddress(int index) {
+        int chunk = chunkOf(index);
+        return chunks[chunk].addresses[index - firstIndex[chunk]];
+    }
+
+    public int getSize(int index) {
+        int chunk = chunkOf(index);
+        return chunks[chunk].sizes[index - firstIndex[chunk]];
+    }
+
+    public boolean isAllocated(int index) {
+        int chunk = chunkOf(index);
+        return chunks[chunk].allocated[index - firstIndex[chunk]];
+    }
+
+    public String getProcessId(int index) {
+        int chunk = chunkOf(index);
+        return chunks[chunk].processIds[index - firstIndex[chunk]];
+    }
+
+    // Index of the block covering the address, -1 if it lies outside the snapshot. A block that
+    // starts before the address's chunk is the last one of the chunks before it.
+    public int indexOf(int address) {
+        if (address < 0 || address >>> chunkShift >= chunks.length) {
+            return -1;
+        }
+        int chunk = address >>> chunkShift;
+        int[] addresses = chunks[chunk].addresses;
+        int low = 0;
+        int high = addresses.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (addresses[mid] > address) {
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return firstIndex[chunk] + high;
+    }
+
+    // Last chunk whose first index is at or below the index, which is the one holding it
+    private int chunkOf(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + size() + " blocks");
+        }
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firstIndex[mid] > index) {
+                high = mid - 1;
+            } else {
+                low = mid;
+            }
+        }
+        return low;
+    }
+
+    // Blocks starting in one chunk of address space, in address order
+    static final class Chunk {
+        final int[] addresses;
+        final int[] sizes;
+        final boolean[] allocated;
+        final String[] processIds;
+
+        Chunk(int[] addresses, int[] sizes, boolean[] allocated, String[] processIds) {
+            this.addresses = addresses;
+            this.sizes = sizes;
+            this.allocated = allocated;
+            this.processIds = processIds;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.memory.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Thread-safe front-end over a BuddySystem that lets requests wait for memory instead of failing.
+// Requests that do not fit are queued as waiters and served when blocks are freed. Waiting is
+// done on a CompletableFuture, which parks the thread; with a ReentrantLock rather than
+// synchronized, virtual threads unmount while they wait, so thousands of pending requests cost
+// no platform threads.
+public class BlockingBuddySystem implements MemoryAllocator {
+    public enum WaiterPolicy {
+        // Strict arrival order; a waiter that does not fit holds back everyone behind it
+        FIFO,
+        // Largest waiting request that fits first, arrival order within a block order
+        BEST_FIT
+    }
+
+    private final BuddySystem buddySystem;
+    private final WaiterPolicy policy;
+    private final ReentrantLock lock;
+    private final int maxOrder;
+    // FIFO keeps every waiter in waiters[0]; BEST_FIT keeps one queue per block order
+    private final ArrayDeque<Waiter>[] waiters;
+    private int waiterCount;
+    private final LongAdder servedWaiters;
+    private final LongAdder timedOutWaiters;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BlockingBuddySystem(int totalSize, WaiterPolicy policy) {
+        this.buddySystem = new BuddySystem(totalSize);
+        this.policy = policy;
+        this.lock = new ReentrantLock();
+        this.maxOrder = Integer.numberOfTrailingZeros(totalSize);
+        this.waiters = new ArrayDeque[policy == WaiterPolicy.FIFO ? 1 : maxOrder + 1];
+        for (int i = 0; i < waiters.length; i++) {
+            waiters[i] = new ArrayDeque<>();
+        }
+        this.servedWaiters = new LongAdder();
+        this.timedOutWaiters = new LongAdder();
+    }
+
+    public BlockingBuddySystem(int totalSize) {
+        this(totalSize, WaiterPolicy.FIFO);
+    }
+
+    // Fails immediately like BuddySystem.allocate, without queueing. Under FIFO it also fails
+    // while requests are queued, since it must not overtake them.
+    @Override
+    public Integer allocate(int size, String processId) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        lock.lock();
+        try {
+            if (policy == WaiterPolicy.FIFO && waiterCount > 0) {
+                return null;
+            }
+            return buddySystem.allocate(size, processId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Waits up to the timeout for the request to be served; null if it timed out or can never
+    // fit in the arena
+    public Integer allocate(int size, String processId, long timeout, TimeUnit unit) throws InterruptedException {
+        CompletableFuture<Integer> future = allocateAsync(size, processId);
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            if (cancelWaiter(future)) {
+                timedOutWaiters.increment();
+                return null;
+            }
+            // Served between the timeout and the cancellation
+            return future.join();
+        } catch (InterruptedException e) {
+            if (!cancelWaiter(future)) {
+                Integer address = future.join();
+                if (address != null) {
+                    deallocate(address);
+                }
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Completes with the address once the request is served, or with null right away if the
+    // size exceeds the arena. Cancelling the future withdraws the request.
+    public CompletableFuture<Integer> allocateAsync(int size, String processId) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        int order = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        if (order > maxOrder) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        lock.lock();
+        try {
+            // Under FIFO a new request does not overtake queued ones
+            if (policy == WaiterPolicy.BEST_FIT || waiterCount == 0) {
+                Integer address = buddySystem.allocate(size, processId);
+                if (address != null) {
+                    return CompletableFuture.completedFuture(address);
+                }
+            }
+            Waiter waiter = new Waiter(size, processId, order);
+            queueFor(order).add(waiter);
+            waiterCount++;
+            waiter.future.whenComplete((address, failure) -> withdraw(waiter));
+            return waiter.future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deallocate(int address) {
+        List<Waiter> served;
+        lock.lock();
+        try {
+            if (!buddySystem.deallocate(address)) {
+                return false;
+            }
+            served = serveWaiters();
+        } finally {
+            lock.unlock();
+        }
+        complete(served);
+        return true;
+    }
+
+    @Override
+    public String getOwner(int address) {
+        lock.lock();
+        try {
+            return buddySystem.getOwner(address);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int deallocateBatch(int[] addresses) {
+        int freed;
+        List<Waiter> served;
+        lock.lock();
+        try {
+            freed = buddySystem.deallocateBatch(addresses);
+            served = freed > 0 ? serveWaiters() : null;
+        } finally {
+            lock.unlock();
+        }
+        complete(served);
+        return freed;
+    }
+
+    public int freeAll(String processId) {
+        int freed;
+        List<Waiter> served;
+        lock.lock();
+        try {
+            freed = buddySystem.freeAll(processId);
+            served = freed > 0 ? serveWaiters() : null;
+        } finally {
+            lock.unlock();
+        }
+        complete(served);
+        return freed;
+    }
+
+    private ArrayDeque<Waiter> queueFor(int order) {
+        return waiters[policy == WaiterPolicy.FIFO ? 0 : order];
+    }
+
+    // Allocates for every waiter that fits now; the futures are completed by the caller after
+    // the lock is released, so their callbacks never run under it
+    private List<Waiter> serveWaiters() {
+        List<Waiter> served = null;
+        // Best fit skips the orders above the largest free block; FIFO has a single queue
+        int largest = buddySystem.getLargestFreeBlock();
+        int top = Math.min(waiters.length - 1, largest == 0 ? -1 : Integer.numberOfTrailingZeros(largest));
+        if (policy == WaiterPolicy.FIFO) {
+            top = 0;
+        }
+        for (int order = top; order >= 0 && waiterCount > 0; order--) {
+            Iterator<Waiter> queue = waiters[order].iterator();
+            while (queue.hasNext()) {
+                Waiter waiter = queue.next();
+                if (waiter.future.isDone()) {
+                    queue.remove();
+                    waiter.queued = false;
+                    waiterCount--;
+                    continue;
+                }
+                Integer address = buddySystem.canAllocate(waiter.size, waiter.processId)
+                        ? buddySystem.allocate(waiter.size, waiter.processId) : null;
+                if (address == null) {
+                    if (policy == WaiterPolicy.FIFO) {
+                        break;
+                    }
+                    continue;
+                }
+                queue.remove();
+                waiter.queued = false;
+                waiterCount--;
+                waiter.address = address;
+                if (served == null) {
+                    served = new ArrayList<>();
+                }
+                served.add(waiter);
+            }
+        }
+        return served;
+    }
+
+    private void complete(List<Waiter> served) {
+        if (served == null) {
+            return;
+        }
+        for (Waiter waiter : served) {
+            servedWaiters.increment();
+            // The caller gave up in the meantime, so the block goes straight back
+            if (!waiter.future.complete(waiter.address)) {
+                deallocate(waiter.address);
+            }
+        }
+    }
+
+    // Withdraws a waiter that has not been served yet; false if it already was
+    private boolean cancelWaiter(CompletableFuture<Integer> future) {
+        return future.cancel(false);
+    }
+
+    // Runs when a waiter's future completes. One still queued was cancelled or completed by the
+    // caller, so it leaves the queue right away; under FIFO the waiters behind it may fit now.
+    private void withdraw(Waiter waiter) {
+        List<Waiter> served = null;
+        lock.lock();
+        try {
+            if (!waiter.queued) {
+                return;
+            }
+            queueFor(waiter.order).remove(waiter);
+            waiter.queued = false;
+            waiterCount--;
+            served = serveWaiters();
+        } finally {
+            lock.unlock();
+        }
+        complete(served);
+    }
+
+    public WaiterPolicy getPolicy() { return policy; }
+
+    public int getWaiterCount() {
+        lock.lock();
+        try {
+            return waiterCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getServedWaiterCount() { return servedWaiters.sum(); }
+    public long getTimedOutWaiterCount() { return timedOutWaiters.sum(); }
+
+    // Getters for statistics
+    public int getTotalSize() { return buddySystem.getTotalSize(); }
+
+    public int getTotalAllocated() {
+        lock.lock();
+        try {
+            return buddySystem.getTotalAllocated();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getFreeMemory() {
+        lock.lock();
+        try {
+            return buddySystem.getFreeMemory();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPeakMemoryUsage() {
+        lock.lock();
+        try {
+            return buddySystem.getPeakMemoryUsage();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getAllocationCount() {
+        lock.lock();
+        try {
+            return buddySystem.getAllocationCount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getFragmentationCount() {
+        lock.lock();
+        try {
+            return buddySystem.getFragmentationCount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Waiter {
+        final int size;
+        final String processId;
+        final int order;
+        final CompletableFuture<Integer> future;
+        int address;
+        boolean queued;
+
+        Waiter(int size, String processId, int order) {
+            this.size = size;
+            this.processId = processId;
+            this.order = order;
+            this.future = new CompletableFuture<>();
+            this.queued = true;
+        }
+    }
+}
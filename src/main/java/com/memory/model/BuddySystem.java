@@ -1,157 +1,800 @@
 package com.memory.model;
 
+import com.memory.metrics.AllocatorMetrics;
+import com.memory.metrics.FailureReason;
+
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class BuddySystem {
+// Heap-only allocator for arenas up to 1 GiB. Its state is an object graph of blocks, maps and
+// listeners, so it is not persisted; LargeBuddySystem keeps its metadata in a mappable buffer.
+public class BuddySystem implements MemoryAllocator {
     private final int totalSize;
-    private final Map<Integer, List<MemoryBlock>> freeList;
+    private final int maxOrder;
+    private final FreeBlockList[] freeList;
+    private final BitSet[] freeBits;
+    // Bit i is set while freeList[i] is not empty
+    private long nonEmptyOrders;
+    private final Map<Integer, MemoryBlock> freeBlocks;
     private final Map<Integer, MemoryBlock> allocatedBlocks;
+    private final Map<String, OwnerEntry> owners;
     private int totalAllocated;
+    private int requestedMemory;
     private int peakMemoryUsage;
     private int allocationCount;
+    private int failedAllocationCount;
     private int fragmentationCount;
+    private final AllocatorMetrics metrics;
+    // metrics.isEnabled() as read once at the start of the current operation
+    private boolean instrumented;
+    // Copied on write so the hot path only reads a volatile array
+    private volatile AllocationListener[] listeners = new AllocationListener[0];
+
+    // Deferred coalescing; off while deferThreshold is 0
+    private static final byte NOT_DEFERRED = 0;
+    private static final byte DEFERRED = 1;
+    private static final byte DEFERRED_MERGE = 2;
+    // Prepared by warmUp; counted and coalesced like a deferred block
+    private static final byte WARMED = 3;
+    private int deferThreshold;
+    private int deferWatermark;
+    private final int[] deferredCount;
+    private int deferredTotal;
+    private long avoidedSplitMergePairs;
+    private int coalescePasses;
+
+    // Warm-up bookkeeping; allocations are only classified once warmUp has run
+    private boolean warmedUp;
+    private final int[] warmupPrepared;
+    private long warmupSplits;
+    private long warmupNanos;
+    private int warmedBlocks;
+    private long warmupAllocations;
+    private long warmupHits;
+    private long warmupSplitAllocations;
+    private long warmupConsumed;
+
+    // Bumped on every change to the block layout; see blocks() and snapshot(). Like the rest of
+    // the state it is read under the allocator's lock.
+    private long version;
+    private BlockSnapshot lastSnapshot;
+    // Snapshots are made of up to 1024 chunks of 1 << chunkShift bytes of address space. Once one
+    // has been taken, changes mark the chunks they touch, and the next snapshot only copies those.
+    private final int chunkShift;
+    private final BitSet dirtyChunks;
 
     public BuddySystem(int totalSize) {
         if (!isPowerOfTwo(totalSize)) {
             throw new IllegalArgumentException("Total size must be a power of 2");
         }
         this.totalSize = totalSize;
-        this.freeList = new HashMap<>();
+        this.maxOrder = Integer.numberOfTrailingZeros(totalSize);
+        this.freeList = new FreeBlockList[maxOrder + 1];
+        this.freeBits = new BitSet[maxOrder + 1];
+        for (int order = 0; order <= maxOrder; order++) {
+            freeList[order] = new FreeBlockList();
+            freeBits[order] = new BitSet();
+        }
+        this.freeBlocks = new HashMap<>();
         this.allocatedBlocks = new HashMap<>();
+        this.owners = new HashMap<>();
         this.totalAllocated = 0;
+        this.requestedMemory = 0;
         this.peakMemoryUsage = 0;
         this.allocationCount = 0;
+        this.failedAllocationCount = 0;
         this.fragmentationCount = 0;
+        this.metrics = new AllocatorMetrics(maxOrder);
+        this.deferredCount = new int[maxOrder + 1];
+        this.warmupPrepared = new int[maxOrder + 1];
+        this.chunkShift = Math.max(0, maxOrder - 10);
+        this.dirtyChunks = new BitSet();
         initializeMemory();
     }
 
     private void initializeMemory() {
         MemoryBlock initialBlock = new MemoryBlock(totalSize, 0);
-        freeList.put(totalSize, new ArrayList<>());
-        freeList.get(totalSize).add(initialBlock);
+        addFreeBlock(initialBlock, maxOrder);
     }
 
     private boolean isPowerOfTwo(int n) {
         return n > 0 && ((n & (n - 1)) == 0);
     }
 
-    private int findSmallestSuitableBlock(int size) {
-        int blockSize = 1;
-        while (blockSize < size) {
-            blockSize *= 2;
-        }
-        return blockSize;
+    // Smallest order whose block size (1 << order) holds the given size
+    private int findSmallestSuitableOrder(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
     }
 
+    @Override
     public Integer allocate(int size, String processId) {
+        instrumented = metrics.isEnabled();
+        long start = instrumented ? System.nanoTime() : 0;
+
+        MemoryBlock block = allocateBlock(size, processId);
+        if (block == null) {
+            return null;
+        }
+
+        totalAllocated += block.getSize();
+        requestedMemory += size;
+        peakMemoryUsage = Math.max(peakMemoryUsage, totalAllocated);
+        allocationCount++;
+
+        if (instrumented) {
+            metrics.recordAllocation(size, block.getStartAddress(), System.nanoTime() - start);
+        }
+        return block.getStartAddress();
+    }
+
+    // Allocates every size for the same process. Addresses are written to the matching slot of
+    // addresses (-1 where the request could not be served). Sizes are checked before anything is
+    // allocated, so an invalid size fails the whole batch without side effects.
+    @Override
+    public int allocateBatch(int[] sizes, String processId, int[] addresses) {
+        if (addresses.length < sizes.length) {
+            throw new IllegalArgumentException("Address array is smaller than the size array");
+        }
+        for (int size : sizes) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("Size must be positive");
+            }
+        }
+
+        instrumented = metrics.isEnabled();
+        int allocated = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            long start = instrumented ? System.nanoTime() : 0;
+            MemoryBlock block = allocateBlock(sizes[i], processId);
+            if (block == null) {
+                addresses[i] = -1;
+                continue;
+            }
+            addresses[i] = block.getStartAddress();
+            // Kept current per block, since the deferred watermark check of the next one reads it
+            totalAllocated += block.getSize();
+            requestedMemory += sizes[i];
+            allocated++;
+            if (instrumented) {
+                metrics.recordAllocation(sizes[i], addresses[i], System.nanoTime() - start);
+            }
+        }
+
+        peakMemoryUsage = Math.max(peakMemoryUsage, totalAllocated);
+        allocationCount += allocated;
+        return allocated;
+    }
+
+    private MemoryBlock allocateBlock(int size, String processId) {
+        return allocateBlock(size, 1, processId);
+    }
+
+    // Blocks of order k start at multiples of 1 << k, so an aligned block is carved from a free
+    // block of at least the alignment's order, keeping its lower piece
+    private MemoryBlock allocateBlock(int size, int alignment, String processId) {
         if (size <= 0) {
             throw new IllegalArgumentException("Size must be positive");
         }
 
-        int blockSize = findSmallestSuitableBlock(size);
-        if (blockSize > totalSize) {
+        int order = findSmallestSuitableOrder(size);
+        if (order > maxOrder) {
+            recordFailure(size, order);
+            return null;
+        }
+
+        OwnerEntry owner = processId == null ? null : owners.get(processId);
+        if (exceedsQuota(owner, 1L << order)) {
+            recordQuotaFailure(size, order);
             return null;
         }
 
-        MemoryBlock block = findAndSplitBlock(blockSize);
+        int searchOrder = Math.max(order, Integer.numberOfTrailingZeros(alignment));
+        MemoryBlock block = searchOrder > maxOrder ? null : findAndSplitBlock(order, searchOrder);
         if (block == null) {
+            recordFailure(size, order);
             return null;
         }
 
+        assignBlock(block, size, owner, processId);
+        if (deferredTotal > 0 && totalAllocated + block.getSize() > deferWatermark) {
+            coalesceAll();
+        }
+        return block;
+    }
+
+    private void assignBlock(MemoryBlock block, int size, OwnerEntry owner, String processId) {
+        markChanged(block.getStartAddress(), block.getSize());
         block.setAllocated(true);
         block.setProcessId(processId);
+        block.setRequestedSize(size);
         allocatedBlocks.put(block.getStartAddress(), block);
+        if (processId != null) {
+            linkOwner(owner != null ? owner : owners.computeIfAbsent(processId, id -> new OwnerEntry()), block);
+        }
+        for (AllocationListener listener : listeners) {
+            listener.blockAllocated(block.getStartAddress(), block.getSize(), processId);
+        }
+    }
+
+    private boolean exceedsQuota(OwnerEntry owner, long extraBytes) {
+        return owner != null && owner.quota >= 0 && owner.usage + extraBytes > owner.quota;
+    }
+
+    private void recordQuotaFailure(int size, int order) {
+        failedAllocationCount++;
+        if (instrumented) {
+            metrics.recordFailure(size, order, FailureReason.QUOTA_EXCEEDED, getFreeMemory(), getLargestFreeBlock());
+        }
+    }
+
+    // Allocates a block whose address is a multiple of alignment (a power of 2)
+    public Integer allocateAligned(int size, int alignment, String processId) {
+        if (alignment <= 0 || (alignment & (alignment - 1)) != 0) {
+            throw new IllegalArgumentException("Alignment must be a power of 2");
+        }
+        instrumented = metrics.isEnabled();
+        long start = instrumented ? System.nanoTime() : 0;
+
+        MemoryBlock block = allocateBlock(size, alignment, processId);
+        if (block == null) {
+            return null;
+        }
 
         totalAllocated += block.getSize();
+        requestedMemory += size;
         peakMemoryUsage = Math.max(peakMemoryUsage, totalAllocated);
         allocationCount++;
-        updateFragmentationCount();
 
+        if (instrumented) {
+            metrics.recordAllocation(size, block.getStartAddress(), System.nanoTime() - start);
+        }
         return block.getStartAddress();
     }
 
-    private MemoryBlock findAndSplitBlock(int requestedSize) {
-        int currentSize = requestedSize;
-        while (currentSize <= totalSize) {
-            List<MemoryBlock> blocks = freeList.get(currentSize);
-            if (blocks != null && !blocks.isEmpty()) {
-                MemoryBlock block = blocks.remove(0);
-                while (block.getSize() > requestedSize) {
-                    splitBlock(block);
-                    block = freeList.get(block.getSize() / 2).remove(0);
+    // Resizes an allocated block and returns its address, which only changes when the block had
+    // to move; null if the address is not allocated or the new size cannot be served, in which
+    // case the old block is left untouched. Shrinking splits off the upper halves; growing absorbs
+    // the free buddies above the block when they are all free. Moving does not copy any data.
+    // With metrics on, a resize to another order counts as an allocation of the new size.
+    public Integer reallocate(int address, int newSize) {
+        if (newSize <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        instrumented = metrics.isEnabled();
+        long start = instrumented ? System.nanoTime() : 0;
+        MemoryBlock block = allocatedBlocks.get(address);
+        if (block == null) {
+            return null;
+        }
+
+        int order = Integer.numberOfTrailingZeros(block.getSize());
+        int newOrder = findSmallestSuitableOrder(newSize);
+        if (newOrder > maxOrder) {
+            recordFailure(newSize, newOrder);
+            return null;
+        }
+        String processId = block.getProcessId();
+        OwnerEntry owner = processId == null ? null : owners.get(processId);
+        if (newOrder > order && exceedsQuota(owner, (1L << newOrder) - block.getSize())) {
+            recordQuotaFailure(newSize, newOrder);
+            return null;
+        }
+
+        if (newOrder != order && (newOrder < order || canGrowInPlace(address, order, newOrder))) {
+            resizeInPlace(block, order, newOrder, owner);
+            if (instrumented) {
+                metrics.recordAllocation(newSize, address, System.nanoTime() - start);
+            }
+        } else if (newOrder != order) {
+            MemoryBlock moved = findAndSplitBlock(newOrder, newOrder);
+            if (moved == null) {
+                recordFailure(newSize, newOrder);
+                return null;
+            }
+            // Both blocks are held while the caller copies, so they both count towards the peak
+            peakMemoryUsage = Math.max(peakMemoryUsage, totalAllocated + moved.getSize());
+            assignBlock(moved, newSize, owner, processId);
+            totalAllocated += moved.getSize();
+            requestedMemory += newSize;
+
+            MemoryBlock released = releaseBlock(address);
+            totalAllocated -= released.getSize();
+            requestedMemory -= released.getRequestedSize();
+            freeBlock(released);
+            if (instrumented) {
+                metrics.recordAllocation(newSize, moved.getStartAddress(), System.nanoTime() - start);
+            }
+            return moved.getStartAddress();
+        }
+
+        requestedMemory += newSize - block.getRequestedSize();
+        block.setRequestedSize(newSize);
+        return address;
+    }
+
+    // Growing in place needs the block aligned to the new size and every buddy above it, up to
+    // that size, sitting free as one whole block
+    private boolean canGrowInPlace(int address, int order, int newOrder) {
+        if ((address & ((1 << newOrder) - 1)) != 0) {
+            return false;
+        }
+        for (int k = order; k < newOrder; k++) {
+            if (findBuddy(k, address + (1 << k)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void resizeInPlace(MemoryBlock block, int order, int newOrder, OwnerEntry owner) {
+        int address = block.getStartAddress();
+        int oldSize = block.getSize();
+        for (AllocationListener listener : listeners) {
+            listener.blockFreed(address, oldSize, block.getProcessId());
+        }
+
+        if (newOrder < order) {
+            for (int k = order - 1; k >= newOrder; k--) {
+                splitBlock(block, k);
+            }
+        } else {
+            for (int k = order; k < newOrder; k++) {
+                removeFreeBlock(freeBlocks.get(address + (1 << k)), k);
+                if (instrumented) {
+                    metrics.recordMerge(k);
                 }
-                return block;
             }
-            currentSize *= 2;
+            block.setSize(1 << newOrder);
+            markChanged(address, block.getSize());
+        }
+
+        int delta = block.getSize() - oldSize;
+        totalAllocated += delta;
+        peakMemoryUsage = Math.max(peakMemoryUsage, totalAllocated);
+        if (owner != null) {
+            owner.usage += delta;
+        }
+        for (AllocationListener listener : listeners) {
+            listener.blockAllocated(address, block.getSize(), block.getProcessId());
         }
-        return null;
     }
 
-    private void splitBlock(MemoryBlock block) {
-        int newSize = block.getSize() / 2;
-        int newAddress = block.getStartAddress() + newSize;
+    private void recordFailure(int size, int order) {
+        failedAllocationCount++;
+        if (instrumented) {
+            FailureReason reason;
+            if (order > maxOrder) {
+                reason = FailureReason.TOO_LARGE;
+            } else if ((1 << order) > getFreeMemory()) {
+                reason = FailureReason.OUT_OF_MEMORY;
+            } else {
+                reason = FailureReason.FRAGMENTED;
+            }
+            metrics.recordFailure(size, order, reason, getFreeMemory(), getLargestFreeBlock());
+        }
+    }
 
-        MemoryBlock buddy1 = new MemoryBlock(newSize, block.getStartAddress());
-        MemoryBlock buddy2 = new MemoryBlock(newSize, newAddress);
+    // Takes a free block of at least searchOrder and splits it down to requestedOrder. When
+    // nothing fits, deferred blocks are coalesced and the search is repeated once.
+    private MemoryBlock findAndSplitBlock(int requestedOrder, int searchOrder) {
+        MemoryBlock block = takeFreeBlock(requestedOrder, searchOrder);
+        if (block == null && deferredTotal > 0) {
+            coalesceAll();
+            block = takeFreeBlock(requestedOrder, searchOrder);
+        }
+        return block;
+    }
+
+    // The lowest non-empty order at or above searchOrder comes straight from the order mask, so
+    // a request that cannot fit fails without probing the free lists
+    private MemoryBlock takeFreeBlock(int requestedOrder, int searchOrder) {
+        long candidates = nonEmptyOrders & (-1L << searchOrder);
+        if (candidates == 0) {
+            return null;
+        }
+
+        int order = Long.numberOfTrailingZeros(candidates);
+        MemoryBlock block = freeList[order].head();
+        if (order == requestedOrder && block.deferred == DEFERRED_MERGE) {
+            avoidedSplitMergePairs++;
+        }
+        if (warmedUp) {
+            warmupAllocations++;
+            if (block.deferred == WARMED) {
+                warmupConsumed++;
+                if (order == requestedOrder) {
+                    warmupHits++;
+                }
+            }
+            if (order > requestedOrder) {
+                warmupSplitAllocations++;
+            }
+        }
+        removeFreeBlock(block, order);
+        while (order > requestedOrder) {
+            order--;
+            splitBlock(block, order);
+        }
+        return block;
+    }
 
-        freeList.computeIfAbsent(newSize, k -> new ArrayList<>()).add(buddy1);
-        freeList.computeIfAbsent(newSize, k -> new ArrayList<>()).add(buddy2);
+    // Shrinks the block to the given order, keeping the lower half and freeing the upper one
+    private void splitBlock(MemoryBlock block, int newOrder) {
+        int newSize = 1 << newOrder;
+        MemoryBlock buddy = new MemoryBlock(newSize, block.getStartAddress() + newSize);
+        markChanged(block.getStartAddress(), block.getSize());
+        block.setSize(newSize);
+        addFreeBlock(buddy, newOrder);
+        if (instrumented) {
+            metrics.recordSplit(newOrder + 1);
+        }
     }
 
+    @Override
     public boolean deallocate(int address) {
-        MemoryBlock block = allocatedBlocks.remove(address);
+        instrumented = metrics.isEnabled();
+        long start = instrumented ? System.nanoTime() : 0;
+
+        MemoryBlock block = releaseBlock(address);
         if (block == null) {
             return false;
         }
 
-        totalAllocated -= block.getSize();
-        block.setAllocated(false);
-        block.setProcessId(null);
+        int size = block.getSize();
+        totalAllocated -= size;
+        requestedMemory -= block.getRequestedSize();
+        freeBlock(block);
 
-        mergeBlocks(block);
-        updateFragmentationCount();
+        if (instrumented) {
+            metrics.recordDeallocation(size, address, System.nanoTime() - start);
+        }
         return true;
     }
 
-    private void mergeBlocks(MemoryBlock block) {
-        int currentSize = block.getSize();
-        while (currentSize < totalSize) {
-            int buddyAddress = block.getStartAddress() ^ currentSize;
-            MemoryBlock buddy = findBuddy(currentSize, buddyAddress);
+    // Frees every address in the array and returns how many were actually allocated
+    @Override
+    public int deallocateBatch(int[] addresses) {
+        instrumented = metrics.isEnabled();
+        int freed = 0;
+        for (int address : addresses) {
+            long start = instrumented ? System.nanoTime() : 0;
+            MemoryBlock block = releaseBlock(address);
+            if (block != null) {
+                int size = block.getSize();
+                // Updated before freeBlock, which compares it with the deferred watermark
+                totalAllocated -= size;
+                requestedMemory -= block.getRequestedSize();
+                freed++;
+                freeBlock(block);
+                if (instrumented) {
+                    metrics.recordDeallocation(size, address, System.nanoTime() - start);
+                }
+            }
+        }
+        return freed;
+    }
 
-            if (buddy == null) {
-                freeList.computeIfAbsent(currentSize, k -> new ArrayList<>()).add(block);
-                break;
+    // Detaches the block allocated at the address; the caller merges it back into the free lists
+    private MemoryBlock releaseBlock(int address) {
+        MemoryBlock block = allocatedBlocks.remove(address);
+        if (block != null) {
+            markChanged(address, block.getSize());
+            if (block.getProcessId() != null) {
+                unlinkOwner(block);
+            }
+            for (AllocationListener listener : listeners) {
+                listener.blockFreed(address, block.getSize(), block.getProcessId());
+            }
+            block.setAllocated(false);
+            block.setProcessId(null);
+        }
+        return block;
+    }
+
+    // Frees every block owned by the process in one pass and returns how many were freed
+    public int freeAll(String processId) {
+        OwnerEntry owner = owners.get(processId);
+        if (owner == null) {
+            return 0;
+        }
+
+        instrumented = metrics.isEnabled();
+        int freed = 0;
+        while (owner.head != null) {
+            long start = instrumented ? System.nanoTime() : 0;
+            int address = owner.head.getStartAddress();
+            MemoryBlock block = releaseBlock(address);
+            int size = block.getSize();
+            totalAllocated -= size;
+            requestedMemory -= block.getRequestedSize();
+            freed++;
+            freeBlock(block);
+            if (instrumented) {
+                metrics.recordDeallocation(size, address, System.nanoTime() - start);
             }
+        }
+        return freed;
+    }
 
-            freeList.get(currentSize).remove(buddy);
-            int newAddress = Math.min(block.getStartAddress(), buddyAddress);
-            block = new MemoryBlock(currentSize * 2, newAddress);
-            currentSize *= 2;
+    private void linkOwner(OwnerEntry owner, MemoryBlock block) {
+        block.ownerPrev = null;
+        block.ownerNext = owner.head;
+        if (owner.head != null) {
+            owner.head.ownerPrev = block;
         }
+        owner.head = block;
+        owner.blockCount++;
+        owner.usage += block.getSize();
+    }
 
-        if (currentSize == totalSize) {
-            freeList.computeIfAbsent(currentSize, k -> new ArrayList<>()).add(block);
+    private void unlinkOwner(MemoryBlock block) {
+        OwnerEntry owner = owners.get(block.getProcessId());
+        if (block.ownerPrev != null) {
+            block.ownerPrev.ownerNext = block.ownerNext;
+        } else {
+            owner.head = block.ownerNext;
+        }
+        if (block.ownerNext != null) {
+            block.ownerNext.ownerPrev = block.ownerPrev;
+        }
+        block.ownerPrev = null;
+        block.ownerNext = null;
+        owner.blockCount--;
+        owner.usage -= block.getSize();
+        if (owner.blockCount == 0 && owner.quota < 0) {
+            owners.remove(block.getProcessId());
         }
     }
 
-    private MemoryBlock findBuddy(int size, int address) {
-        List<MemoryBlock> blocks = freeList.get(size);
-        if (blocks != null) {
-            for (MemoryBlock block : blocks) {
-                if (block.getStartAddress() == address) {
-                    return block;
+    // Returns a released block to the free lists. In deferred mode it is kept at its own order
+    // while that order holds fewer than deferThreshold deferred blocks and usage is not above the
+    // watermark; otherwise it is merged with its free buddies right away.
+    private void freeBlock(MemoryBlock block) {
+        int order = Integer.numberOfTrailingZeros(block.getSize());
+        if (deferredCount[order] >= deferThreshold || totalAllocated > deferWatermark) {
+            mergeBlocks(block);
+            return;
+        }
+
+        // Remember whether the eager path would have merged, so a later reuse at this order
+        // counts as an avoided split/merge pair
+        boolean buddyFree = order < maxOrder && findBuddy(order, block.getStartAddress() ^ (1 << order)) != null;
+        block.setRequestedSize(0);
+        addFreeBlock(block, order);
+        block.deferred = buddyFree ? DEFERRED_MERGE : DEFERRED;
+        deferredCount[order]++;
+        deferredTotal++;
+    }
+
+    // Moves the allocated block at address into the free block of the same order at
+    // targetAddress, keeping its owner and requested size, then merges the vacated block. Data is
+    // not copied; that is up to the caller (see RelocatableBuddySystem).
+    boolean moveBlock(int address, int targetAddress) {
+        MemoryBlock block = allocatedBlocks.get(address);
+        if (block == null) {
+            return false;
+        }
+        int order = Integer.numberOfTrailingZeros(block.getSize());
+        MemoryBlock target = findBuddy(order, targetAddress);
+        if (target == null || target.getSize() != block.getSize()) {
+            return false;
+        }
+
+        instrumented = metrics.isEnabled();
+        removeFreeBlock(target, order);
+        String processId = block.getProcessId();
+        assignBlock(target, block.getRequestedSize(), processId == null ? null : owners.get(processId), processId);
+        mergeBlocks(releaseBlock(address));
+        return true;
+    }
+
+    // Address of the lowest free block of the order at or above fromAddress, -1 if none
+    int nextFreeBlock(int order, int fromAddress) {
+        int index = freeBits[order].nextSetBit(fromAddress >>> order);
+        return index < 0 ? -1 : index << order;
+    }
+
+    // Address of the highest free block of the order at or below fromAddress, -1 if none
+    int previousFreeBlock(int order, int fromAddress) {
+        int index = freeBits[order].previousSetBit(fromAddress >>> order);
+        return index < 0 ? -1 : index << order;
+    }
+
+    // Merges every deferred block as far as its buddies allow
+    public void coalesceDeferred() {
+        instrumented = metrics.isEnabled();
+        coalesceAll();
+    }
+
+    private void coalesceAll() {
+        if (deferredTotal == 0) {
+            return;
+        }
+        coalescePasses++;
+        for (int order = 0; order < maxOrder; order++) {
+            MemoryBlock[] deferred = new MemoryBlock[deferredCount[order]];
+            int count = 0;
+            for (MemoryBlock block = freeList[order].head(); block != null && count < deferred.length; block = block.next) {
+                if (block.deferred != NOT_DEFERRED) {
+                    deferred[count++] = block;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                // An earlier merge in this pass may already have absorbed the block
+                if (deferred[i].deferred != NOT_DEFERRED) {
+                    removeFreeBlock(deferred[i], order);
+                    mergeBlocks(deferred[i]);
                 }
             }
         }
-        return null;
+        // Top-order blocks have no buddy to merge with
+        deferredTotal -= deferredCount[maxOrder];
+        deferredCount[maxOrder] = 0;
+        for (MemoryBlock block = freeList[maxOrder].head(); block != null; block = block.next) {
+            block.deferred = NOT_DEFERRED;
+        }
+    }
+
+    // Keeps up to perOrderThreshold freed blocks per order uncoalesced while allocated memory stays
+    // at or below watermark (a fraction of the arena); crossing it coalesces them all. A threshold of 0 turns the mode off.
+    public void setDeferredCoalescing(int perOrderThreshold, double watermark) {
+        if (perOrderThreshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        if (watermark <= 0 || watermark > 1) {
+            throw new IllegalArgumentException("Watermark must be in (0, 1]");
+        }
+        this.deferThreshold = perOrderThreshold;
+        this.deferWatermark = perOrderThreshold == 0 ? 0 : (int) Math.min(totalSize, Math.round(watermark * totalSize));
+        if (perOrderThreshold == 0) {
+            coalesceDeferred();
+        }
+    }
+
+    public int getDeferThreshold() { return deferThreshold; }
+    public int getDeferredBlockCount() { return deferredTotal; }
+    public int getDeferredBlockCount(int order) { return order <= maxOrder ? deferredCount[order] : 0; }
+    public long getAvoidedSplitMergePairs() { return avoidedSplitMergePairs; }
+    public int getCoalescePassCount() { return coalescePasses; }
+
+    // Pre-splits free memory so the free lists hold the profile's block count for every order
+    // below the top one, putting at most maxFraction of the arena into those blocks (the profile
+    // is scaled down to fit). Orders are prepared smallest first, so the remainders of each split
+    // count towards the larger orders. Prepared blocks are kept like deferred blocks and only
+    // merged back when a request cannot be served otherwise or usage crosses the deferred
+    // watermark. So that freed blocks do not merge them away, the deferred threshold is raised to
+    // twice the largest per-order count, with a watermark of 1.0 if deferral was off.
+    public WarmupReport warmUp(WarmupProfile profile, double maxFraction) {
+        if (maxFraction <= 0 || maxFraction > 1) {
+            throw new IllegalArgumentException("Fraction must be in (0, 1]");
+        }
+        instrumented = metrics.isEnabled();
+        long start = System.nanoTime();
+        long wanted = profile.getTotalBytes(maxOrder);
+        long budget = (long) (maxFraction * totalSize);
+        double scale = wanted > budget ? (double) budget / wanted : 1.0;
+
+        int largestCount = 0;
+        for (int order = 0; order < maxOrder; order++) {
+            int target = (int) (profile.getBlockCount(order) * scale);
+            while (freeList[order].size() < target) {
+                long larger = nonEmptyOrders & (-1L << (order + 1));
+                if (larger == 0) {
+                    break;
+                }
+                int from = Long.numberOfTrailingZeros(larger);
+                MemoryBlock block = removeFreeBlock(freeList[from].head(), from);
+                for (int k = from - 1; k >= order; k--) {
+                    splitBlock(block, k);
+                }
+                addFreeBlock(block, order);
+                warmupSplits += from - order;
+            }
+
+            // Blocks already deferred count towards the target as they are
+            int available = 0;
+            for (MemoryBlock block = freeList[order].head(); block != null && available < target; block = block.next) {
+                if (block.deferred == NOT_DEFERRED) {
+                    block.deferred = WARMED;
+                    deferredCount[order]++;
+                    deferredTotal++;
+                    warmedBlocks++;
+                    warmupPrepared[order]++;
+                }
+                available++;
+            }
+            largestCount = Math.max(largestCount, deferredCount[order]);
+        }
+
+        if (deferThreshold < 2 * largestCount) {
+            if (deferThreshold == 0) {
+                deferWatermark = totalSize;
+            }
+            deferThreshold = 2 * largestCount;
+        }
+        warmedUp = true;
+        warmupNanos += System.nanoTime() - start;
+        return getWarmupReport();
+    }
+
+    public WarmupReport getWarmupReport() {
+        return new WarmupReport(warmupPrepared.clone(), warmupSplits, warmupNanos, warmupAllocations,
+                warmupHits, warmupSplitAllocations, warmupConsumed, warmedBlocks);
+    }
+
+    private void mergeBlocks(MemoryBlock block) {
+        int order = Integer.numberOfTrailingZeros(block.getSize());
+        int address = block.getStartAddress();
+        while (order < maxOrder) {
+            int buddyAddress = address ^ (1 << order);
+            MemoryBlock buddy = findBuddy(order, buddyAddress);
+            if (buddy == null) {
+                break;
+            }
+
+            removeFreeBlock(buddy, order);
+            if (instrumented) {
+                metrics.recordMerge(order);
+            }
+            address = Math.min(address, buddyAddress);
+            order++;
+        }
+
+        block.setStartAddress(address);
+        block.setSize(1 << order);
+        block.setRequestedSize(0);
+        addFreeBlock(block, order);
+    }
+
+    private MemoryBlock findBuddy(int order, int address) {
+        if (!freeBits[order].get(address >>> order)) {
+            return null;
+        }
+        return freeBlocks.get(address);
+    }
+
+    private void addFreeBlock(MemoryBlock block, int order) {
+        version++;
+        markChanged(block.getStartAddress(), block.getSize());
+        freeList[order].push(block);
+        nonEmptyOrders |= 1L << order;
+        freeBits[order].set(block.getStartAddress() >>> order);
+        freeBlocks.put(block.getStartAddress(), block);
+        fragmentationCount++;
     }
 
-    private void updateFragmentationCount() {
-        fragmentationCount = 0;
-        for (List<MemoryBlock> blocks : freeList.values()) {
-            fragmentationCount += blocks.size();
+    private MemoryBlock removeFreeBlock(MemoryBlock block, int order) {
+        version++;
+        markChanged(block.getStartAddress(), block.getSize());
+        if (block.deferred != NOT_DEFERRED) {
+            if (block.deferred == WARMED) {
+                warmedBlocks--;
+            }
+            block.deferred = NOT_DEFERRED;
+            deferredCount[order]--;
+            deferredTotal--;
+        }
+        freeList[order].remove(block);
+        if (freeList[order].isEmpty()) {
+            nonEmptyOrders &= ~(1L << order);
         }
+        freeBits[order].clear(block.getStartAddress() >>> order);
+        freeBlocks.remove(block.getStartAddress());
+        fragmentationCount--;
+        return block;
+    }
+
+    public synchronized void addAllocationListener(AllocationListener listener) {
+        AllocationListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeAllocationListener(AllocationListener listener) {
+        List<AllocationListener> updated = new ArrayList<>(Arrays.asList(listeners));
+        updated.remove(listener);
+        listeners = updated.toArray(new AllocationListener[0]);
     }
 
     // Getters for statistics
@@ -160,24 +803,246 @@ public class BuddySystem {
     public int getFreeMemory() { return totalSize - totalAllocated; }
     public int getPeakMemoryUsage() { return peakMemoryUsage; }
     public int getAllocationCount() { return allocationCount; }
+    public int getFailedAllocationCount() { return failedAllocationCount; }
+
+    // Latency histograms, split/merge counters and JFR events; off until getMetrics().setEnabled(true)
+    public AllocatorMetrics getMetrics() { return metrics; }
     public int getFragmentationCount() { return fragmentationCount; }
+    public int getRequestedMemory() { return requestedMemory; }
+    public int getFreeBlockCount(int order) { return order <= maxOrder ? freeList[order].size() : 0; }
 
-    public List<MemoryBlock> getAllBlocks() {
-        List<MemoryBlock> allBlocks = new ArrayList<>(allocatedBlocks.values());
-        for (List<MemoryBlock> blocks : freeList.values()) {
-            allBlocks.addAll(blocks);
+    // Number of free blocks per order; index i counts blocks of size 1 << i
+    public int[] getFreeBlockHistogram() {
+        int[] histogram = new int[maxOrder + 1];
+        for (int order = 0; order <= maxOrder; order++) {
+            histogram[order] = freeList[order].size();
+        }
+        return histogram;
+    }
+
+    public int getLargestFreeBlock() {
+        return nonEmptyOrders == 0 ? 0 : 1 << (63 - Long.numberOfLeadingZeros(nonEmptyOrders));
+    }
+
+    // Whether allocate(size, ...) would currently succeed, ignoring quotas. Deferred blocks count
+    // as they are; allocate may still succeed after coalescing them.
+    public boolean canAllocate(int size) {
+        if (size <= 0) {
+            return false;
+        }
+        int order = findSmallestSuitableOrder(size);
+        return order <= maxOrder && (nonEmptyOrders & (-1L << order)) != 0;
+    }
+
+    // Same check including the process's quota
+    public boolean canAllocate(int size, String processId) {
+        if (!canAllocate(size)) {
+            return false;
         }
-        allBlocks.sort(Comparator.comparingInt(MemoryBlock::getStartAddress));
+        OwnerEntry owner = processId == null ? null : owners.get(processId);
+        return !exceedsQuota(owner, 1L << findSmallestSuitableOrder(size));
+    }
+
+    // Share of allocated memory lost to rounding requests up to a power of two
+    public double getInternalFragmentation() {
+        return totalAllocated == 0 ? 0.0 : (double) (totalAllocated - requestedMemory) / totalAllocated;
+    }
+
+    // Share of free memory that cannot be handed out as one block
+    public double getExternalFragmentation() {
+        int freeMemory = getFreeMemory();
+        return freeMemory == 0 ? 0.0 : 1.0 - (double) getLargestFreeBlock() / freeMemory;
+    }
+
+    // Blocks tile the arena, so walking from one block to the next by size yields them in
+    // address order without sorting
+    public List<MemoryBlock> getAllBlocks() {
+        List<MemoryBlock> allBlocks = new ArrayList<>(allocatedBlocks.size() + freeBlocks.size());
+        blocks(0, totalSize).forEachRemaining(allBlocks::add);
         return allBlocks;
     }
 
-    public Map<String, MemoryBlock> getAllocatedBlocksByProcess() {
-        Map<String, MemoryBlock> blocksByProcess = new HashMap<>();
-        for (MemoryBlock block : allocatedBlocks.values()) {
-            if (block.getProcessId() != null) {
-                blocksByProcess.put(block.getProcessId(), block);
+    // Lazily walks the blocks overlapping [from, to) in address order. The blocks are the live
+    // objects; the iterator fails with ConcurrentModificationException once the layout changes.
+    public Iterator<MemoryBlock> blocks(int from, int to) {
+        return new BlockIterator(Math.max(from, 0), Math.min(to, totalSize));
+    }
+
+    public Stream<MemoryBlock> streamBlocks(int from, int to) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(blocks(from, to),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    // Immutable copy of the layout, reused for as long as the layout does not change. It shares
+    // the copies of unchanged chunks with the previous snapshot, so after a change it costs
+    // O(chunks) plus the blocks of the chunks the change touched; the first one copies every block.
+    public BlockSnapshot snapshot() {
+        if (lastSnapshot != null && lastSnapshot.getVersion() == version) {
+            return lastSnapshot;
+        }
+        BlockSnapshot.Chunk[] chunks;
+        if (lastSnapshot == null) {
+            chunks = new BlockSnapshot.Chunk[totalSize >>> chunkShift];
+            for (int chunk = 0; chunk < chunks.length; chunk++) {
+                chunks[chunk] = copyChunk(chunk);
+            }
+        } else {
+            chunks = lastSnapshot.getChunks().clone();
+            for (int chunk = dirtyChunks.nextSetBit(0); chunk >= 0; chunk = dirtyChunks.nextSetBit(chunk + 1)) {
+                chunks[chunk] = copyChunk(chunk);
+            }
+        }
+        dirtyChunks.clear();
+        lastSnapshot = new BlockSnapshot(this, version, chunkShift, chunks);
+        return lastSnapshot;
+    }
+
+    // Copies the blocks starting in the chunk; a block starting before it belongs to an earlier one
+    private BlockSnapshot.Chunk copyChunk(int chunk) {
+        int start = chunk << chunkShift;
+        int end = start + (1 << chunkShift);
+        MemoryBlock covering = findBlockContaining(start);
+        int first = covering.getStartAddress() < start ? covering.getStartAddress() + covering.getSize() : start;
+        int count = 0;
+        for (int address = first; address < end; address += blockAt(address).getSize()) {
+            count++;
+        }
+        int[] addresses = new int[count];
+        int[] sizes = new int[count];
+        boolean[] allocated = new boolean[count];
+        String[] processIds = new String[count];
+        int index = 0;
+        for (int address = first; address < end; address += sizes[index++]) {
+            MemoryBlock block = blockAt(address);
+            addresses[index] = address;
+            sizes[index] = block.getSize();
+            allocated[index] = block.isAllocated();
+            processIds[index] = block.getProcessId();
+        }
+        return new BlockSnapshot.Chunk(addresses, sizes, allocated, processIds);
+    }
+
+    // Marks the snapshot chunks overlapping [start, start + size) as changed
+    private void markChanged(int start, int size) {
+        if (lastSnapshot != null) {
+            dirtyChunks.set(start >>> chunkShift, ((start + size - 1) >>> chunkShift) + 1);
+        }
+    }
+
+    public long getVersion() { return version; }
+
+    // Block starting exactly at the address; only one block can start at any address
+    private MemoryBlock blockAt(int address) {
+        MemoryBlock block = allocatedBlocks.get(address);
+        return block != null ? block : freeBlocks.get(address);
+    }
+
+    private final class BlockIterator implements Iterator<MemoryBlock> {
+        private final int end;
+        private final long expectedVersion;
+        private int address;
+
+        BlockIterator(int from, int to) {
+            this.end = to;
+            this.expectedVersion = version;
+            MemoryBlock first = from < to ? findBlockContaining(from) : null;
+            this.address = first == null ? to : first.getStartAddress();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return address < end;
+        }
+
+        @Override
+        public MemoryBlock next() {
+            if (address >= end) {
+                throw new NoSuchElementException();
+            }
+            if (version != expectedVersion) {
+                throw new ConcurrentModificationException();
+            }
+            MemoryBlock block = blockAt(address);
+            address += block.getSize();
+            return block;
+        }
+    }
+
+    // Free or allocated block covering the address, found by probing the aligned start of every
+    // order instead of searching; the next block in address order starts at start + size
+    public MemoryBlock findBlockContaining(int address) {
+        if (address < 0 || address >= totalSize) {
+            return null;
+        }
+        for (int order = 0; order <= maxOrder; order++) {
+            int start = address & -(1 << order);
+            MemoryBlock block = allocatedBlocks.get(start);
+            if (block == null && freeBits[order].get(start >>> order)) {
+                block = freeBlocks.get(start);
+            }
+            if (block != null && block.getSize() == 1 << order) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getOwner(int address) {
+        MemoryBlock block = allocatedBlocks.get(address);
+        return block == null ? null : block.getProcessId();
+    }
+
+    public Map<String, List<MemoryBlock>> getAllocatedBlocksByProcess() {
+        Map<String, List<MemoryBlock>> blocksByProcess = new HashMap<>();
+        for (String processId : owners.keySet()) {
+            List<MemoryBlock> blocks = getBlocksByProcess(processId);
+            if (!blocks.isEmpty()) {
+                blocksByProcess.put(processId, blocks);
             }
         }
         return blocksByProcess;
     }
-}
\ No newline at end of file
+
+    public List<MemoryBlock> getBlocksByProcess(String processId) {
+        List<MemoryBlock> blocks = new ArrayList<>();
+        OwnerEntry owner = owners.get(processId);
+        for (MemoryBlock block = owner == null ? null : owner.head; block != null; block = block.ownerNext) {
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    // Per-owner usage counters and quotas
+    public int getProcessUsage(String processId) {
+        OwnerEntry owner = owners.get(processId);
+        return owner == null ? 0 : (int) owner.usage;
+    }
+
+    public int getProcessBlockCount(String processId) {
+        OwnerEntry owner = owners.get(processId);
+        return owner == null ? 0 : owner.blockCount;
+    }
+
+    // Caps the bytes (in rounded block sizes) the process may hold; a negative quota removes the cap
+    public void setQuota(String processId, long quota) {
+        OwnerEntry owner = owners.computeIfAbsent(processId, id -> new OwnerEntry());
+        owner.quota = quota < 0 ? -1 : quota;
+        if (owner.blockCount == 0 && owner.quota < 0) {
+            owners.remove(processId);
+        }
+    }
+
+    public long getQuota(String processId) {
+        OwnerEntry owner = owners.get(processId);
+        return owner == null ? -1 : owner.quota;
+    }
+
+    // Blocks owned by one process, linked through MemoryBlock.ownerPrev/ownerNext
+    private static final class OwnerEntry {
+        MemoryBlock head;
+        int blockCount;
+        long usage;
+        long quota = -1;
+    }
+}
@@ -0,0 +1,282 @@
+package com.memory.model;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Thread-safe buddy allocator. Each order has its own lock, so threads working on
+// different block sizes never contend, and statistics are kept in atomics.
+public class ConcurrentBuddySystem implements MemoryAllocator {
+    private final int totalSize;
+    private final int maxOrder;
+    private final ReentrantLock[] orderLocks;
+    private final FreeBlockList[] freeList;
+    private final BitSet[] freeBits;
+    private final List<Map<Integer, MemoryBlock>> freeBlocks;
+    private final Map<Integer, MemoryBlock> allocatedBlocks;
+    private final AtomicInteger totalAllocated;
+    private final AtomicInteger peakMemoryUsage;
+    private final LongAdder allocationCount;
+    private final LongAdder fragmentationCount;
+    // Blocks detached from one order and not yet placed in another by a split or merge, in the
+    // low 32 bits, and the number of finished transits in the high 32 bits, so one read gives both
+    private final AtomicLong transit;
+    private final AtomicInteger transitWaiters;
+    private final ReentrantLock transitLock;
+    private final Condition transitFinished;
+
+    private static final long TRANSIT_FINISHED = (1L << 32) - 1;
+    // How long a request keeps retrying while other threads' splits and merges go on
+    private static final long MAX_TRANSIT_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    public ConcurrentBuddySystem(int totalSize) {
+        if (totalSize <= 0 || (totalSize & (totalSize - 1)) != 0) {
+            throw new IllegalArgumentException("Total size must be a power of 2");
+        }
+        this.totalSize = totalSize;
+        this.maxOrder = Integer.numberOfTrailingZeros(totalSize);
+        this.orderLocks = new ReentrantLock[maxOrder + 1];
+        this.freeList = new FreeBlockList[maxOrder + 1];
+        this.freeBits = new BitSet[maxOrder + 1];
+        this.freeBlocks = new ArrayList<>(maxOrder + 1);
+        for (int order = 0; order <= maxOrder; order++) {
+            orderLocks[order] = new ReentrantLock();
+            freeList[order] = new FreeBlockList();
+            freeBits[order] = new BitSet();
+            freeBlocks.add(new HashMap<>());
+        }
+        this.allocatedBlocks = new ConcurrentHashMap<>();
+        this.totalAllocated = new AtomicInteger();
+        this.peakMemoryUsage = new AtomicInteger();
+        this.allocationCount = new LongAdder();
+        this.fragmentationCount = new LongAdder();
+        this.transit = new AtomicLong();
+        this.transitWaiters = new AtomicInteger();
+        this.transitLock = new ReentrantLock();
+        this.transitFinished = transitLock.newCondition();
+        addFreeBlock(new MemoryBlock(totalSize, 0), maxOrder);
+    }
+
+    private int findSmallestSuitableOrder(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    @Override
+    public Integer allocate(int size, String processId) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+
+        int order = findSmallestSuitableOrder(size);
+        if (order > maxOrder) {
+            return null;
+        }
+
+        MemoryBlock block = findAndSplitBlock(order);
+        // A concurrent split or merge may be carrying the memory we need between two orders, so
+        // the request fails once a search finds nothing while no block is in transit. It also
+        // fails when too few bytes are free for the block, which no transit can change, and
+        // after MAX_TRANSIT_WAIT_NANOS, so a fragmented arena under constant churn cannot keep
+        // it waiting forever.
+        long deadline = 0;
+        while (block == null) {
+            long seen = transit.get();
+            block = findAndSplitBlock(order);
+            if (block == null) {
+                if (((int) seen == 0 && transit.get() == seen) || getFreeMemory() < 1 << order) {
+                    return null;
+                }
+                long now = System.nanoTime();
+                if (deadline == 0) {
+                    deadline = now + MAX_TRANSIT_WAIT_NANOS;
+                } else if (now - deadline >= 0) {
+                    return null;
+                }
+                awaitTransit(seen, deadline);
+            }
+        }
+
+        block.setAllocated(true);
+        block.setProcessId(processId);
+        allocatedBlocks.put(block.getStartAddress(), block);
+
+        int allocated = totalAllocated.addAndGet(block.getSize());
+        peakMemoryUsage.accumulateAndGet(allocated, Math::max);
+        allocationCount.increment();
+
+        return block.getStartAddress();
+    }
+
+    private MemoryBlock findAndSplitBlock(int requestedOrder) {
+        for (int order = requestedOrder; order <= maxOrder; order++) {
+            MemoryBlock block = takeFreeBlock(order);
+            if (block != null) {
+                while (order > requestedOrder) {
+                    order--;
+                    int newSize = 1 << order;
+                    block.setSize(newSize);
+                    MemoryBlock buddy = new MemoryBlock(newSize, block.getStartAddress() + newSize);
+                    orderLocks[order].lock();
+                    try {
+                        addFreeBlock(buddy, order);
+                    } finally {
+                        orderLocks[order].unlock();
+                    }
+                }
+                endTransit();
+                return block;
+            }
+        }
+        return null;
+    }
+
+    private MemoryBlock takeFreeBlock(int order) {
+        ReentrantLock lock = orderLocks[order];
+        lock.lock();
+        try {
+            MemoryBlock block = freeList[order].head();
+            if (block == null) {
+                return null;
+            }
+            transit.incrementAndGet();
+            return removeFreeBlock(block, order);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deallocate(int address) {
+        MemoryBlock block = allocatedBlocks.remove(address);
+        if (block == null) {
+            return false;
+        }
+
+        totalAllocated.addAndGet(-block.getSize());
+        block.setAllocated(false);
+        block.setProcessId(null);
+
+        transit.incrementAndGet();
+        mergeBlocks(block);
+        endTransit();
+        return true;
+    }
+
+    @Override
+    public String getOwner(int address) {
+        MemoryBlock block = allocatedBlocks.get(address);
+        return block == null ? null : block.getProcessId();
+    }
+
+    private void endTransit() {
+        transit.addAndGet(TRANSIT_FINISHED);
+        if (transitWaiters.get() > 0) {
+            transitLock.lock();
+            try {
+                transitFinished.signalAll();
+            } finally {
+                transitLock.unlock();
+            }
+        }
+    }
+
+    // Parks until a transit that was under way when seen was read has finished, or until the
+    // deadline. The waiter is registered before the state is checked and endTransit updates the
+    // state before checking for waiters, so a wakeup cannot be missed.
+    private void awaitTransit(long seen, long deadline) {
+        transitWaiters.incrementAndGet();
+        transitLock.lock();
+        boolean interrupted = false;
+        try {
+            long remaining = deadline - System.nanoTime();
+            while (transit.get() >>> 32 == seen >>> 32 && (int) transit.get() != 0 && remaining > 0) {
+                try {
+                    remaining = transitFinished.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    remaining = deadline - System.nanoTime();
+                }
+            }
+        } finally {
+            transitLock.unlock();
+            transitWaiters.decrementAndGet();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Checking for the buddy and publishing the block happen under the same order lock, so when
+    // two buddies are freed at once exactly one of the threads sees the other and merges them
+    private void mergeBlocks(MemoryBlock block) {
+        int order = Integer.numberOfTrailingZeros(block.getSize());
+        int address = block.getStartAddress();
+        while (true) {
+            ReentrantLock lock = orderLocks[order];
+            lock.lock();
+            try {
+                int buddyAddress = address ^ (1 << order);
+                if (order == maxOrder || !freeBits[order].get(buddyAddress >>> order)) {
+                    block.setStartAddress(address);
+                    block.setSize(1 << order);
+                    addFreeBlock(block, order);
+                    return;
+                }
+                removeFreeBlock(freeBlocks.get(order).get(buddyAddress), order);
+                address = Math.min(address, buddyAddress);
+            } finally {
+                lock.unlock();
+            }
+            order++;
+        }
+    }
+
+    // Callers must hold the lock of the given order
+    private void addFreeBlock(MemoryBlock block, int order) {
+        freeList[order].push(block);
+        freeBits[order].set(block.getStartAddress() >>> order);
+        freeBlocks.get(order).put(block.getStartAddress(), block);
+        fragmentationCount.increment();
+    }
+
+    private MemoryBlock removeFreeBlock(MemoryBlock block, int order) {
+        freeList[order].remove(block);
+        freeBits[order].clear(block.getStartAddress() >>> order);
+        freeBlocks.get(order).remove(block.getStartAddress());
+        fragmentationCount.decrement();
+        return block;
+    }
+
+    // Getters for statistics
+    public int getTotalSize() { return totalSize; }
+    public int getTotalAllocated() { return totalAllocated.get(); }
+    public int getFreeMemory() { return totalSize - totalAllocated.get(); }
+    public int getPeakMemoryUsage() { return peakMemoryUsage.get(); }
+    public int getAllocationCount() { return allocationCount.intValue(); }
+    public int getFragmentationCount() { return fragmentationCount.intValue(); }
+
+    // Locks every order in ascending order, like the merge path. Blocks that are in the
+    // middle of a split or merge at that moment are not included.
+    public List<MemoryBlock> getAllBlocks() {
+        for (ReentrantLock lock : orderLocks) {
+            lock.lock();
+        }
+        try {
+            List<MemoryBlock> allBlocks = new ArrayList<>(allocatedBlocks.values());
+            for (Map<Integer, MemoryBlock> blocks : freeBlocks) {
+                allBlocks.addAll(blocks.values());
+            }
+            allBlocks.sort(Comparator.comparingInt(MemoryBlock::getStartAddress));
+            return allBlocks;
+        } finally {
+            for (int order = maxOrder; order >= 0; order--) {
+                orderLocks[order].unlock();
+            }
+        }
+    }
+}
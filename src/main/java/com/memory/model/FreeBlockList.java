@@ -0,0 +1,35 @@
+package com.memory.model;
+
+// Intrusive doubly-linked list of free blocks of a single order.
+class FreeBlockList {
+    private MemoryBlock head;
+    private int size;
+
+    void push(MemoryBlock block) {
+        block.prev = null;
+        block.next = head;
+        if (head != null) {
+            head.prev = block;
+        }
+        head = block;
+        size++;
+    }
+
+    void remove(MemoryBlock block) {
+        if (block.prev != null) {
+            block.prev.next = block.next;
+        } else {
+            head = block.next;
+        }
+        if (block.next != null) {
+            block.next.prev = block.prev;
+        }
+        block.prev = null;
+        block.next = null;
+        size--;
+    }
+
+    MemoryBlock head() { return head; }
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+}
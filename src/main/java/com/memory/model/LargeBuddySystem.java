@@ -0,0 +1,522 @@
+package com.memory.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Buddy allocator with 64-bit addresses for arenas of 2 GiB and more. Memory is tracked in pages
+// of 1 << minOrder bytes, and all metadata lives in one buffer of primitive tables indexed by page,
+// so its size depends on totalSize >> minOrder rather than on the number of blocks. Free lists are
+// linked through the next/prev tables and every level keeps a bitmap of its free blocks.
+//
+// The buffer is either on the heap or a memory-mapped file (see create/open). In the mapped case
+// the allocated-block table is the commit point of every operation: a dirty flag is raised while
+// the free lists are being changed, and a process that finds it raised on open rebuilds the free
+// lists and statistics from the allocated-block table.
+public class LargeBuddySystem {
+    private static final int NONE = -1;
+    // Returned by allocateHandle when the request cannot be served
+    public static final long NO_HANDLE = -1;
+    private static final int HANDLE_ORDER_BITS = 6;
+    private static final int MAX_LEVELS = 64;
+
+    // Metadata header
+    private static final int MAGIC = 0x42534D44; // "BSMD"
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int TOTAL_SIZE_OFFSET = 8;
+    private static final int MIN_ORDER_OFFSET = 16;
+    private static final int DIRTY_OFFSET = 20;
+    private static final int TOTAL_ALLOCATED_OFFSET = 24;
+    private static final int PEAK_OFFSET = 32;
+    private static final int ALLOCATION_COUNT_OFFSET = 40;
+    private static final int FRAGMENTATION_OFFSET = 48;
+    private static final int FREE_HEAD_OFFSET = 64;
+    private static final int FREE_COUNT_OFFSET = FREE_HEAD_OFFSET + 4 * MAX_LEVELS;
+    private static final int TABLES_OFFSET = FREE_COUNT_OFFSET + 4 * MAX_LEVELS;
+
+    private final long totalSize;
+    private final int minOrder;
+    private final int maxOrder;
+    private final int topLevel;
+    private final int pageCount;
+    private final ByteBuffer metadata;
+    private final int nextOffset;
+    private final int prevOffset;
+    // Level + 1 of the allocated block starting at each page, 0 if no allocated block starts there
+    private final int allocatedLevelOffset;
+    private final int[] freeBitsOffset;
+    private final Map<Long, String> processIds;
+    private final boolean recovered;
+    private long totalAllocated;
+    private long peakMemoryUsage;
+    private long allocationCount;
+    private int fragmentationCount;
+    // Bit i is set while level i has a free block; kept on the heap and derived from the free
+    // counts when an arena is opened
+    private long nonEmptyLevels;
+
+    public LargeBuddySystem(long totalSize, int minOrder) {
+        this(totalSize, minOrder, null, false);
+    }
+
+    public LargeBuddySystem(long totalSize) {
+        this(totalSize, 0);
+    }
+
+    // Formats a fresh metadata buffer when existing is null, otherwise attaches to it
+    private LargeBuddySystem(long totalSize, int minOrder, ByteBuffer existing, boolean formatted) {
+        if (totalSize <= 0 || (totalSize & (totalSize - 1)) != 0) {
+            throw new IllegalArgumentException("Total size must be a power of 2");
+        }
+        int maxOrder = Long.numberOfTrailingZeros(totalSize);
+        if (minOrder < 0 || minOrder > maxOrder) {
+            throw new IllegalArgumentException("Minimum block order must be between 0 and " + maxOrder);
+        }
+        long size = metadataSize(totalSize, minOrder);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Arena has too many pages; raise the minimum block order");
+        }
+        this.totalSize = totalSize;
+        this.minOrder = minOrder;
+        this.maxOrder = maxOrder;
+        this.topLevel = maxOrder - minOrder;
+        this.pageCount = (int) (totalSize >>> minOrder);
+        this.nextOffset = TABLES_OFFSET;
+        this.prevOffset = nextOffset + 4 * pageCount;
+        this.allocatedLevelOffset = prevOffset + 4 * pageCount;
+        this.freeBitsOffset = new int[topLevel + 1];
+        int offset = (allocatedLevelOffset + pageCount + 7) & ~7;
+        for (int level = 0; level <= topLevel; level++) {
+            freeBitsOffset[level] = offset;
+            offset = Math.toIntExact(offset + 8 * bitmapWords(pageCount, level));
+        }
+        this.processIds = new HashMap<>();
+
+        if (existing == null) {
+            this.metadata = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            this.metadata = existing.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (!formatted) {
+            format();
+            this.recovered = false;
+        } else if (metadata.getInt(DIRTY_OFFSET) != 0) {
+            rebuildFreeLists();
+            this.recovered = true;
+        } else {
+            this.totalAllocated = metadata.getLong(TOTAL_ALLOCATED_OFFSET);
+            this.peakMemoryUsage = metadata.getLong(PEAK_OFFSET);
+            this.allocationCount = metadata.getLong(ALLOCATION_COUNT_OFFSET);
+            this.fragmentationCount = metadata.getInt(FRAGMENTATION_OFFSET);
+            for (int level = 0; level <= topLevel; level++) {
+                if (freeCount(level) > 0) {
+                    nonEmptyLevels |= 1L << level;
+                }
+            }
+            this.recovered = false;
+        }
+    }
+
+    // Creates a new arena whose metadata lives in the given file, replacing any existing content
+    public static LargeBuddySystem create(Path file, long totalSize, int minOrder) throws IOException {
+        long size = metadataSize(totalSize, minOrder);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Arena has too many pages; raise the minimum block order");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new LargeBuddySystem(totalSize, minOrder, buffer, false);
+        }
+    }
+
+    // Reattaches to an arena created by create(). Opening a cleanly written file only maps it;
+    // if the last writer died mid-operation the free lists are rebuilt first (see wasRecovered).
+    public static LargeBuddySystem open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < TABLES_OFFSET) {
+                throw new IOException("Not an allocator metadata file: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Not an allocator metadata file: " + file);
+            }
+            long totalSize = buffer.getLong(TOTAL_SIZE_OFFSET);
+            int minOrder = buffer.getInt(MIN_ORDER_OFFSET);
+            if (metadataSize(totalSize, minOrder) != channel.size()) {
+                throw new IOException("Allocator metadata file is truncated: " + file);
+            }
+            return new LargeBuddySystem(totalSize, minOrder, buffer, true);
+        }
+    }
+
+    private static long metadataSize(long totalSize, int minOrder) {
+        long pages = totalSize >>> minOrder;
+        long size = ((TABLES_OFFSET + 9 * pages) + 7) & ~7L;
+        int levels = Long.numberOfTrailingZeros(totalSize) - minOrder + 1;
+        for (int level = 0; level < levels; level++) {
+            size += 8L * bitmapWords(pages, level);
+        }
+        return size;
+    }
+
+    private static long bitmapWords(long pages, int level) {
+        return Math.max(1, ((pages >>> level) + 63) >>> 6);
+    }
+
+    private void format() {
+        metadata.putInt(MAGIC_OFFSET, MAGIC);
+        metadata.putInt(VERSION_OFFSET, VERSION);
+        metadata.putLong(TOTAL_SIZE_OFFSET, totalSize);
+        metadata.putInt(MIN_ORDER_OFFSET, minOrder);
+        for (int level = 0; level <= topLevel; level++) {
+            setFreeHead(level, NONE);
+        }
+        addFreeBlock(0, topLevel);
+        writeStatistics();
+    }
+
+    // Level of the smallest block holding the given size, or -1 if it exceeds the arena
+    private int findSmallestSuitableLevel(long size) {
+        int order = size <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(size - 1);
+        if (order > maxOrder) {
+            return -1;
+        }
+        return Math.max(order, minOrder) - minOrder;
+    }
+
+    public Long allocate(long size, String processId) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+
+        int level = findSmallestSuitableLevel(size);
+        if (level < 0) {
+            return null;
+        }
+
+        int page = allocatePage(level);
+        if (page == NONE) {
+            return null;
+        }
+
+        long address = (long) page << minOrder;
+        if (processId != null) {
+            processIds.put(address, processId);
+        }
+        return address;
+    }
+
+    // Primitive variant of allocate for hot paths: no boxing, no process id and nothing
+    // allocated on the heap. The handle packs the page and the block order; NO_HANDLE on failure.
+    public long allocateHandle(long size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+
+        int level = findSmallestSuitableLevel(size);
+        if (level < 0) {
+            return NO_HANDLE;
+        }
+
+        int page = allocatePage(level);
+        if (page == NONE) {
+            return NO_HANDLE;
+        }
+        return ((long) page << HANDLE_ORDER_BITS) | (level + minOrder);
+    }
+
+    // Frees a handle from allocateHandle. The order in the handle spares the size lookup but is
+    // still checked against the allocated-block table, so stale handles are rejected.
+    public boolean freeHandle(long handle) {
+        if (handle < 0) {
+            return false;
+        }
+        long page = handle >>> HANDLE_ORDER_BITS;
+        int level = handleOrder(handle) - minOrder;
+        if (page >= pageCount || level < 0 || allocatedLevel((int) page) - 1 != level) {
+            return false;
+        }
+
+        if (!processIds.isEmpty()) {
+            processIds.remove(handleAddress(handle));
+        }
+        releasePage((int) page, level);
+        return true;
+    }
+
+    public long handleAddress(long handle) {
+        return (handle >>> HANDLE_ORDER_BITS) << minOrder;
+    }
+
+    public static int handleOrder(long handle) {
+        return (int) (handle & ((1 << HANDLE_ORDER_BITS) - 1));
+    }
+
+    public static long handleSize(long handle) {
+        return 1L << handleOrder(handle);
+    }
+
+    private int allocatePage(int level) {
+        markDirty();
+        int page = findAndSplitBlock(level);
+        if (page == NONE) {
+            markClean();
+            return NONE;
+        }
+
+        setAllocatedLevel(page, level + 1);
+        totalAllocated += blockSize(level);
+        peakMemoryUsage = Math.max(peakMemoryUsage, totalAllocated);
+        allocationCount++;
+        writeStatistics();
+        markClean();
+        return page;
+    }
+
+    // The lowest non-empty level at or above the request is found in one step from the level mask
+    private int findAndSplitBlock(int requestedLevel) {
+        long candidates = nonEmptyLevels & (-1L << requestedLevel);
+        if (candidates == 0) {
+            return NONE;
+        }
+        int level = Long.numberOfTrailingZeros(candidates);
+        int page = freeHead(level);
+        removeFreeBlock(page, level);
+        while (level > requestedLevel) {
+            level--;
+            addFreeBlock(page + (1 << level), level);
+        }
+        return page;
+    }
+
+    // Whether a request of this size would currently succeed
+    public boolean canAllocate(long size) {
+        int level = findSmallestSuitableLevel(size);
+        return size > 0 && level >= 0 && (nonEmptyLevels & (-1L << level)) != 0;
+    }
+
+    public boolean deallocate(long address) {
+        if (address < 0 || address >= totalSize || (address & ((1L << minOrder) - 1)) != 0) {
+            return false;
+        }
+        int page = (int) (address >>> minOrder);
+        int level = allocatedLevel(page) - 1;
+        if (level < 0) {
+            return false;
+        }
+
+        processIds.remove(address);
+        releasePage(page, level);
+        return true;
+    }
+
+    private void releasePage(int page, int level) {
+        markDirty();
+        setAllocatedLevel(page, 0);
+        totalAllocated -= blockSize(level);
+
+        mergeBlocks(page, level);
+        writeStatistics();
+        markClean();
+    }
+
+    private void mergeBlocks(int page, int level) {
+        while (level < topLevel) {
+            int buddy = page ^ (1 << level);
+            if (!isFree(buddy, level)) {
+                break;
+            }
+            removeFreeBlock(buddy, level);
+            page = Math.min(page, buddy);
+            level++;
+        }
+        addFreeBlock(page, level);
+    }
+
+    // Rebuilds the free lists, bitmaps and statistics from the allocated-block table by carving
+    // every gap between allocated blocks into the largest aligned free blocks that fit
+    private void rebuildFreeLists() {
+        for (int level = 0; level <= topLevel; level++) {
+            setFreeHead(level, NONE);
+            setFreeCount(level, 0);
+            for (int word = 0; word < bitmapWords(pageCount, level); word++) {
+                metadata.putLong(freeBitsOffset[level] + 8 * word, 0);
+            }
+        }
+        fragmentationCount = 0;
+        nonEmptyLevels = 0;
+        totalAllocated = 0;
+
+        int nextAllocated = NONE;
+        int page = 0;
+        while (page < pageCount) {
+            int level = allocatedLevel(page) - 1;
+            if (level >= 0) {
+                totalAllocated += blockSize(level);
+                page += 1 << level;
+                continue;
+            }
+            if (nextAllocated < page) {
+                nextAllocated = page;
+                while (nextAllocated < pageCount && allocatedLevel(nextAllocated) == 0) {
+                    nextAllocated++;
+                }
+            }
+            level = Math.min(Integer.numberOfTrailingZeros(page), topLevel);
+            while (page + (1 << level) > nextAllocated) {
+                level--;
+            }
+            addFreeBlock(page, level);
+            page += 1 << level;
+        }
+
+        peakMemoryUsage = Math.max(metadata.getLong(PEAK_OFFSET), totalAllocated);
+        allocationCount = metadata.getLong(ALLOCATION_COUNT_OFFSET);
+        writeStatistics();
+        markClean();
+    }
+
+    private void markDirty() {
+        metadata.putInt(DIRTY_OFFSET, 1);
+    }
+
+    private void markClean() {
+        metadata.putInt(DIRTY_OFFSET, 0);
+    }
+
+    private void writeStatistics() {
+        metadata.putLong(TOTAL_ALLOCATED_OFFSET, totalAllocated);
+        metadata.putLong(PEAK_OFFSET, peakMemoryUsage);
+        metadata.putLong(ALLOCATION_COUNT_OFFSET, allocationCount);
+        metadata.putInt(FRAGMENTATION_OFFSET, fragmentationCount);
+    }
+
+    // Forces the mapped metadata to disk; without it the state survives process crashes but not
+    // operating system crashes. A no-op for heap-backed arenas.
+    public void sync() {
+        if (metadata instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) metadata).force();
+        }
+    }
+
+    public boolean isPersistent() { return metadata instanceof MappedByteBuffer; }
+
+    // True if open() found an interrupted operation and rebuilt the free lists
+    public boolean wasRecovered() { return recovered; }
+
+    private boolean isFree(int page, int level) {
+        int index = page >>> level;
+        int offset = freeBitsOffset[level] + ((index >>> 6) << 3);
+        return (metadata.getLong(offset) & (1L << index)) != 0;
+    }
+
+    private void addFreeBlock(int page, int level) {
+        int head = freeHead(level);
+        setNext(page, head);
+        setPrev(page, NONE);
+        if (head != NONE) {
+            setPrev(head, page);
+        }
+        setFreeHead(level, page);
+
+        int index = page >>> level;
+        int offset = freeBitsOffset[level] + ((index >>> 6) << 3);
+        metadata.putLong(offset, metadata.getLong(offset) | (1L << index));
+        setFreeCount(level, freeCount(level) + 1);
+        nonEmptyLevels |= 1L << level;
+        fragmentationCount++;
+    }
+
+    private void removeFreeBlock(int page, int level) {
+        int prev = prev(page);
+        int next = next(page);
+        if (prev != NONE) {
+            setNext(prev, next);
+        } else {
+            setFreeHead(level, next);
+        }
+        if (next != NONE) {
+            setPrev(next, prev);
+        }
+
+        int index = page >>> level;
+        int offset = freeBitsOffset[level] + ((index >>> 6) << 3);
+        metadata.putLong(offset, metadata.getLong(offset) & ~(1L << index));
+        int count = freeCount(level) - 1;
+        setFreeCount(level, count);
+        if (count == 0) {
+            nonEmptyLevels &= ~(1L << level);
+        }
+        fragmentationCount--;
+    }
+
+    // Metadata table accessors
+    private int next(int page) { return metadata.getInt(nextOffset + 4 * page); }
+    private void setNext(int page, int value) { metadata.putInt(nextOffset + 4 * page, value); }
+    private int prev(int page) { return metadata.getInt(prevOffset + 4 * page); }
+    private void setPrev(int page, int value) { metadata.putInt(prevOffset + 4 * page, value); }
+    private int allocatedLevel(int page) { return metadata.get(allocatedLevelOffset + page); }
+    private void setAllocatedLevel(int page, int value) { metadata.put(allocatedLevelOffset + page, (byte) value); }
+    private int freeHead(int level) { return metadata.getInt(FREE_HEAD_OFFSET + 4 * level); }
+    private void setFreeHead(int level, int page) { metadata.putInt(FREE_HEAD_OFFSET + 4 * level, page); }
+    private int freeCount(int level) { return metadata.getInt(FREE_COUNT_OFFSET + 4 * level); }
+    private void setFreeCount(int level, int count) { metadata.putInt(FREE_COUNT_OFFSET + 4 * level, count); }
+
+    private long blockSize(int level) {
+        return 1L << (level + minOrder);
+    }
+
+    // Getters for statistics
+    public long getTotalSize() { return totalSize; }
+    public int getMinOrder() { return minOrder; }
+    public long getTotalAllocated() { return totalAllocated; }
+    public long getFreeMemory() { return totalSize - totalAllocated; }
+    public long getPeakMemoryUsage() { return peakMemoryUsage; }
+    public long getAllocationCount() { return allocationCount; }
+    public int getFragmentationCount() { return fragmentationCount; }
+    public int getMetadataSize() { return metadata.capacity(); }
+
+    public long getBlockSize(long address) {
+        if (address < 0 || address >= totalSize || (address & ((1L << minOrder) - 1)) != 0) {
+            return 0;
+        }
+        int level = allocatedLevel((int) (address >>> minOrder)) - 1;
+        return level < 0 ? 0 : blockSize(level);
+    }
+
+    public long getLargestFreeBlock() {
+        return nonEmptyLevels == 0 ? 0 : blockSize(63 - Long.numberOfLeadingZeros(nonEmptyLevels));
+    }
+
+    // Blocks tile the arena, so walking block by block yields them already in address order.
+    // Process ids are kept on the heap and are not persisted with the metadata.
+    public List<LongMemoryBlock> getAllBlocks() {
+        List<LongMemoryBlock> allBlocks = new ArrayList<>();
+        int page = 0;
+        while (page < pageCount) {
+            long address = (long) page << minOrder;
+            int level = allocatedLevel(page) - 1;
+            boolean allocated = level >= 0;
+            if (!allocated) {
+                level = 0;
+                while (!isFree(page, level)) {
+                    level++;
+                }
+            }
+            allBlocks.add(new LongMemoryBlock(blockSize(level), address, allocated,
+                    allocated ? processIds.get(address) : null));
+            page += 1 << level;
+        }
+        return allBlocks;
+    }
+}
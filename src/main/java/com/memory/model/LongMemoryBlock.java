@@ -0,0 +1,27 @@
+package com.memory.model;
+
+// Block descriptor for LargeBuddySystem, which addresses arenas beyond the int range
+public class LongMemoryBlock {
+    private final long size;
+    private final long startAddress;
+    private final boolean allocated;
+    private final String processId;
+
+    public LongMemoryBlock(long size, long startAddress, boolean allocated, String processId) {
+        this.size = size;
+        this.startAddress = startAddress;
+        this.allocated = allocated;
+        this.processId = processId;
+    }
+
+    public long getSize() { return size; }
+    public long getStartAddress() { return startAddress; }
+    public boolean isAllocated() { return allocated; }
+    public String getProcessId() { return processId; }
+
+    @Override
+    public String toString() {
+        return String.format("Block[addr=%d, size=%d, %s, process=%s]",
+                startAddress, size, allocated ? "allocated" : "free", processId);
+    }
+}
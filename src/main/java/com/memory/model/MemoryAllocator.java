@@ -0,0 +1,46 @@
+package com.memory.model;
+
+public interface MemoryAllocator {
+    Integer allocate(int size, String processId);
+    boolean deallocate(int address);
+
+    // Batch variants; addresses of failed allocations are reported as -1
+    default int allocateBatch(int[] sizes, String processId, int[] addresses) {
+        if (addresses.length < sizes.length) {
+            throw new IllegalArgumentException("Address array is smaller than the size array");
+        }
+        int allocated = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            Integer address = allocate(sizes[i], processId);
+            addresses[i] = address == null ? -1 : address;
+            if (address != null) {
+                allocated++;
+            }
+        }
+        return allocated;
+    }
+
+    default int deallocateBatch(int[] addresses) {
+        int freed = 0;
+        for (int address : addresses) {
+            if (deallocate(address)) {
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    // Process id of the allocated block starting at the address; null if there is none or the
+    // allocator does not keep owners
+    default String getOwner(int address) {
+        return null;
+    }
+
+    // Getters for statistics
+    int getTotalSize();
+    int getTotalAllocated();
+    int getFreeMemory();
+    int getPeakMemoryUsage();
+    int getAllocationCount();
+    int getFragmentationCount();
+}
@@ -5,6 +5,18 @@ public class MemoryBlock {
     private int startAddress;
     private boolean allocated;
     private String processId;
+    private int requestedSize;
+
+    // Free-list links, only meaningful while the block sits in a FreeBlockList
+    MemoryBlock prev;
+    MemoryBlock next;
+
+    // Owner-index links, only meaningful while the block is allocated to a process
+    MemoryBlock ownerPrev;
+    MemoryBlock ownerNext;
+
+    // Deferred-coalescing state while the block sits in a free list, see BuddySystem.freeBlock
+    byte deferred;
 
     public MemoryBlock(int size, int startAddress) {
         this.size = size;
@@ -26,6 +38,9 @@ public class MemoryBlock {
     public String getProcessId() { return processId; }
     public void setProcessId(String processId) { this.processId = processId; }
 
+    public int getRequestedSize() { return requestedSize; }
+    public void setRequestedSize(int requestedSize) { this.requestedSize = requestedSize; }
+
     @Override
     public String toString() {
         return String.format("Block[addr=%d, size=%d, %s, process=%s]",
@@ -0,0 +1,87 @@
+package com.memory.model;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Buddy allocator backed by a direct buffer; allocations are zero-copy slices of the arena
+public class OffHeapBuddySystem {
+    private final BuddySystem buddySystem;
+    private final ByteBuffer arena;
+    private final Map<ByteBuffer, Integer> sliceAddresses;
+
+    public OffHeapBuddySystem(int totalSize) {
+        this.buddySystem = new BuddySystem(totalSize);
+        this.arena = ByteBuffer.allocateDirect(totalSize);
+        this.sliceAddresses = new IdentityHashMap<>();
+    }
+
+    public ByteBuffer allocate(int size, String processId) {
+        Integer address = buddySystem.allocate(size, processId);
+        if (address == null) {
+            return null;
+        }
+
+        ByteBuffer slice = arena.slice(address, size);
+        sliceAddresses.put(slice, address);
+        return slice;
+    }
+
+    // Slice whose address is a multiple of alignment (a power of 2) within the arena
+    public ByteBuffer allocateAligned(int size, int alignment, String processId) {
+        Integer address = buddySystem.allocateAligned(size, alignment, processId);
+        if (address == null) {
+            return null;
+        }
+
+        ByteBuffer slice = arena.slice(address, size);
+        sliceAddresses.put(slice, address);
+        return slice;
+    }
+
+    // Returns a slice of the new size holding the old contents, or null (leaving the old slice
+    // valid) if the request cannot be served. Bytes are only copied when the block has to move.
+    // The old slice must not be used afterwards, even when the block stayed in place.
+    public ByteBuffer reallocate(ByteBuffer buffer, int newSize) {
+        Integer address = sliceAddresses.get(buffer);
+        if (address == null) {
+            return null;
+        }
+        Integer newAddress = buddySystem.reallocate(address, newSize);
+        if (newAddress == null) {
+            return null;
+        }
+
+        // A moved block's old memory is free but untouched until the next allocation
+        if (!newAddress.equals(address)) {
+            arena.put(newAddress, arena, address, Math.min(buffer.capacity(), newSize));
+        }
+        sliceAddresses.remove(buffer);
+        ByteBuffer slice = arena.slice(newAddress, newSize);
+        sliceAddresses.put(slice, newAddress);
+        return slice;
+    }
+
+    // The buffer must be the instance returned by allocate, not a duplicate or sub-slice of it
+    public boolean deallocate(ByteBuffer buffer) {
+        Integer address = sliceAddresses.remove(buffer);
+        if (address == null) {
+            return false;
+        }
+        return buddySystem.deallocate(address);
+    }
+
+    public Integer getAddress(ByteBuffer buffer) {
+        return sliceAddresses.get(buffer);
+    }
+
+    public BuddySystem getBuddySystem() { return buddySystem; }
+
+    // Getters for statistics
+    public int getTotalSize() { return buddySystem.getTotalSize(); }
+    public int getTotalAllocated() { return buddySystem.getTotalAllocated(); }
+    public int getFreeMemory() { return buddySystem.getFreeMemory(); }
+    public int getPeakMemoryUsage() { return buddySystem.getPeakMemoryUsage(); }
+    public int getAllocationCount() { return buddySystem.getAllocationCount(); }
+    public int getFragmentationCount() { return buddySystem.getFragmentationCount(); }
+}
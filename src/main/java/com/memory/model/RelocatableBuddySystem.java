@@ -0,0 +1,189 @@
+package com.memory.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Buddy allocator that hands out handles instead of addresses, so blocks can be moved to undo
+// fragmentation. Callers resolve a handle to its current address with resolve() and must not
+// keep addresses across compaction steps.
+//
+// A compaction move looks for a free block whose buddy is a single allocated block of the same
+// order and moves that block into a lower free block of that order, letting the first free block
+// merge with the vacated space. Buddies split into smaller live blocks are not moved directly;
+// they usually become movable once the smaller orders have been compacted. Every move removes at
+// least one free block, so repeated steps end. Work is split into steps bounded by a time
+// budget, so it can run between other operations: a sweep over every order keeps its position
+// (order and hole address) across steps, and the budget is checked after every hole examined.
+// Compaction is done once a whole sweep finds nothing to move and the layout has not changed
+// in the meantime.
+public class RelocatableBuddySystem implements MemoryAllocator {
+    private final BuddySystem buddySystem;
+    private final BlockMover mover;
+    // Current address of every handle, -1 for unused handles
+    private int[] addresses;
+    private final Map<Integer, Integer> handleAt;
+    private int[] freeHandles;
+    private int freeHandleCount;
+    private int nextHandle;
+    private long moveCount;
+    private long bytesMoved;
+    private long compactionSteps;
+    // Position of the current sweep: the order being scanned and the highest hole address left
+    private final int maxOrder;
+    private int scanOrder;
+    private int scanHole;
+    // Layout version when the current sweep started, and when a sweep last found nothing to do
+    private long sweepVersion;
+    private long compactedVersion;
+
+    public RelocatableBuddySystem(int totalSize, BlockMover mover) {
+        this.buddySystem = new BuddySystem(totalSize);
+        this.mover = mover;
+        this.addresses = new int[64];
+        this.handleAt = new HashMap<>();
+        this.freeHandles = new int[64];
+        this.maxOrder = Integer.numberOfTrailingZeros(totalSize);
+        this.scanOrder = maxOrder;
+        this.sweepVersion = -1;
+        this.compactedVersion = -1;
+    }
+
+    // Returns a handle, or null if the request cannot be served
+    @Override
+    public Integer allocate(int size, String processId) {
+        Integer address = buddySystem.allocate(size, processId);
+        if (address == null) {
+            return null;
+        }
+
+        int handle = freeHandleCount > 0 ? freeHandles[--freeHandleCount] : nextHandle++;
+        if (handle == addresses.length) {
+            addresses = Arrays.copyOf(addresses, handle * 2);
+        }
+        addresses[handle] = address;
+        handleAt.put(address, handle);
+        return handle;
+    }
+
+    @Override
+    public boolean deallocate(int handle) {
+        int address = resolve(handle);
+        if (address < 0 || !buddySystem.deallocate(address)) {
+            return false;
+        }
+
+        handleAt.remove(address);
+        addresses[handle] = -1;
+        if (freeHandleCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeHandleCount * 2);
+        }
+        freeHandles[freeHandleCount++] = handle;
+        return true;
+    }
+
+    // Current address of a live handle, -1 otherwise
+    public int resolve(int handle) {
+        return handle >= 0 && handle < nextHandle ? addresses[handle] : -1;
+    }
+
+    // Runs compaction moves until compaction is done or budgetNanos has passed; returns the
+    // number of blocks moved. At least one hole is examined even with a zero budget, so a step
+    // may move nothing without compaction being done; see isCompacted().
+    public int compactStep(long budgetNanos) {
+        compactionSteps++;
+        buddySystem.coalesceDeferred();
+        long deadline = System.nanoTime() + budgetNanos;
+        int moves = 0;
+        while (!isCompacted()) {
+            if (scanOrder == maxOrder) {
+                if (buddySystem.getVersion() == sweepVersion) {
+                    compactedVersion = sweepVersion;
+                    break;
+                }
+                scanOrder = 0;
+                scanHole = buddySystem.getTotalSize() - 1;
+                sweepVersion = buddySystem.getVersion();
+            }
+            if (examineNextHole()) {
+                moves++;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        return moves;
+    }
+
+    // Runs steps until nothing is left to move
+    public int compact() {
+        int moves = 0;
+        while (!isCompacted()) {
+            moves += compactStep(Long.MAX_VALUE / 2);
+        }
+        return moves;
+    }
+
+    // True while the layout is unchanged since a sweep last found nothing to move
+    public boolean isCompacted() {
+        return buddySystem.getVersion() == compactedVersion;
+    }
+
+    // Smallest orders first, since merging them feeds the free lists of the orders above. Within
+    // an order, holes are examined from the top down and one with a movable buddy is paired with
+    // the lowest free block, so live blocks only ever move down and the free space gathers at the
+    // top of the arena. Orders with nothing to pair are skipped; returns true if a block moved.
+    private boolean examineNextHole() {
+        while (scanOrder < maxOrder) {
+            int target = buddySystem.nextFreeBlock(scanOrder, 0);
+            int hole = buddySystem.getFreeBlockCount(scanOrder) < 2 || scanHole < 0
+                    ? -1 : buddySystem.previousFreeBlock(scanOrder, scanHole);
+            if (hole <= target) {
+                scanOrder++;
+                scanHole = buddySystem.getTotalSize() - 1;
+                continue;
+            }
+
+            scanHole = hole - 1;
+            int size = 1 << scanOrder;
+            int buddyAddress = hole ^ size;
+            MemoryBlock buddy = buddySystem.findBlockContaining(buddyAddress);
+            if (buddyAddress > target && buddy.isAllocated() && handleAt.containsKey(buddyAddress)
+                    && buddy.getStartAddress() == buddyAddress && buddy.getSize() == size
+                    && buddySystem.moveBlock(buddyAddress, target)) {
+                relocated(buddyAddress, target, size);
+                return true;
+            }
+            return false;
+        }
+        return false;
+    }
+
+    private void relocated(int from, int to, int size) {
+        Integer handle = handleAt.remove(from);
+        handleAt.put(to, handle);
+        addresses[handle] = to;
+        if (mover != null) {
+            mover.move(from, to, size);
+        }
+        moveCount++;
+        bytesMoved += size;
+    }
+
+    // Blocks allocated directly on the underlying allocator have no handle and are never moved
+    public BuddySystem getBuddySystem() { return buddySystem; }
+
+    // Compaction statistics
+    public long getMoveCount() { return moveCount; }
+    public long getBytesMoved() { return bytesMoved; }
+    public long getCompactionSteps() { return compactionSteps; }
+
+    // Getters for statistics
+    public int getTotalSize() { return buddySystem.getTotalSize(); }
+    public int getTotalAllocated() { return buddySystem.getTotalAllocated(); }
+    public int getFreeMemory() { return buddySystem.getFreeMemory(); }
+    public int getPeakMemoryUsage() { return buddySystem.getPeakMemoryUsage(); }
+    public int getAllocationCount() { return buddySystem.getAllocationCount(); }
+    public int getFragmentationCount() { return buddySystem.getFragmentationCount(); }
+    public int getLargestFreeBlock() { return buddySystem.getLargestFreeBlock(); }
+}
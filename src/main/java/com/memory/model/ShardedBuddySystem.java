@@ -0,0 +1,190 @@
+package com.memory.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Front-end over several independent BuddySystem arenas laid out back to back in one address
+// space. Each thread gets a home arena and falls back to the others when it is full; an address
+// always maps back to its arena, so deallocate needs no lookup table.
+public class ShardedBuddySystem implements MemoryAllocator {
+    public enum ArenaSelectionPolicy {
+        ROUND_ROBIN,
+        LEAST_LOADED
+    }
+
+    private final BuddySystem[] arenas;
+    private final int arenaSize;
+    private final int arenaShift;
+    private final ArenaSelectionPolicy policy;
+    private final ThreadLocal<Integer> homeArena;
+    private final AtomicInteger nextArena;
+    private final AtomicInteger totalAllocated;
+    private final AtomicInteger peakMemoryUsage;
+    // Bytes allocated in each arena, kept outside the arenas so picking one needs no arena lock
+    private final AtomicIntegerArray arenaAllocated;
+
+    public ShardedBuddySystem(int arenaCount, int arenaSize, ArenaSelectionPolicy policy) {
+        if (arenaCount <= 0) {
+            throw new IllegalArgumentException("Arena count must be positive");
+        }
+        if ((long) arenaCount * arenaSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Arenas do not fit in the int address space");
+        }
+        this.arenas = new BuddySystem[arenaCount];
+        for (int i = 0; i < arenaCount; i++) {
+            arenas[i] = new BuddySystem(arenaSize);
+        }
+        this.arenaSize = arenaSize;
+        this.arenaShift = Integer.numberOfTrailingZeros(arenaSize);
+        this.policy = policy;
+        this.homeArena = ThreadLocal.withInitial(this::selectArena);
+        this.nextArena = new AtomicInteger();
+        this.totalAllocated = new AtomicInteger();
+        this.peakMemoryUsage = new AtomicInteger();
+        this.arenaAllocated = new AtomicIntegerArray(arenaCount);
+    }
+
+    public ShardedBuddySystem(int arenaCount, int arenaSize) {
+        this(arenaCount, arenaSize, ArenaSelectionPolicy.ROUND_ROBIN);
+    }
+
+    private int selectArena() {
+        if (policy == ArenaSelectionPolicy.ROUND_ROBIN) {
+            return Math.floorMod(nextArena.getAndIncrement(), arenas.length);
+        }
+        int best = 0;
+        for (int i = 1; i < arenas.length; i++) {
+            if (arenaAllocated.get(i) < arenaAllocated.get(best)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Integer allocate(int size, String processId) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+
+        int home = homeArena.get();
+        for (int i = 0; i < arenas.length; i++) {
+            int index = (home + i) % arenas.length;
+            BuddySystem arena = arenas[index];
+            Integer address;
+            int blockSize;
+            synchronized (arena) {
+                int before = arena.getTotalAllocated();
+                address = arena.allocate(size, processId);
+                blockSize = arena.getTotalAllocated() - before;
+            }
+            if (address != null) {
+                arenaAllocated.addAndGet(index, blockSize);
+                int allocated = totalAllocated.addAndGet(blockSize);
+                peakMemoryUsage.accumulateAndGet(allocated, Math::max);
+                return (index << arenaShift) | address;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean deallocate(int address) {
+        if (address < 0) {
+            return false;
+        }
+        int index = address >>> arenaShift;
+        if (index >= arenas.length) {
+            return false;
+        }
+
+        BuddySystem arena = arenas[index];
+        int freedBytes;
+        synchronized (arena) {
+            int before = arena.getTotalAllocated();
+            if (!arena.deallocate(address & (arenaSize - 1))) {
+                return false;
+            }
+            freedBytes = before - arena.getTotalAllocated();
+        }
+        arenaAllocated.addAndGet(index, -freedBytes);
+        totalAllocated.addAndGet(-freedBytes);
+        return true;
+    }
+
+    @Override
+    public String getOwner(int address) {
+        if (address < 0 || address >>> arenaShift >= arenas.length) {
+            return null;
+        }
+        BuddySystem arena = arenas[address >>> arenaShift];
+        synchronized (arena) {
+            return arena.getOwner(address & (arenaSize - 1));
+        }
+    }
+
+    public int getArenaCount() { return arenas.length; }
+    public int getArenaSize() { return arenaSize; }
+    public ArenaSelectionPolicy getPolicy() { return policy; }
+
+    // Direct access to one arena; callers must synchronize on it while using it
+    public BuddySystem getArena(int index) { return arenas[index]; }
+
+    // Getters for statistics, aggregated over all arenas. The peak is the peak of the combined
+    // usage, which can be lower than the sum of the per-arena peaks.
+    public int getTotalSize() { return arenaSize * arenas.length; }
+    public int getTotalAllocated() { return totalAllocated.get(); }
+    public int getFreeMemory() { return getTotalSize() - totalAllocated.get(); }
+    public int getPeakMemoryUsage() { return peakMemoryUsage.get(); }
+
+    public int getAllocationCount() {
+        int count = 0;
+        for (BuddySystem arena : arenas) {
+            synchronized (arena) {
+                count += arena.getAllocationCount();
+            }
+        }
+        return count;
+    }
+
+    public int getFragmentationCount() {
+        int count = 0;
+        for (BuddySystem arena : arenas) {
+            synchronized (arena) {
+                count += arena.getFragmentationCount();
+            }
+        }
+        return count;
+    }
+
+    public int getRequestedMemory() {
+        int requested = 0;
+        for (BuddySystem arena : arenas) {
+            synchronized (arena) {
+                requested += arena.getRequestedMemory();
+            }
+        }
+        return requested;
+    }
+
+    public boolean canAllocate(int size) {
+        for (BuddySystem arena : arenas) {
+            synchronized (arena) {
+                if (arena.canAllocate(size)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int getLargestFreeBlock() {
+        int largest = 0;
+        for (BuddySystem arena : arenas) {
+            synchronized (arena) {
+                largest = Math.max(largest, arena.getLargestFreeBlock());
+            }
+        }
+        return largest;
+    }
+}
@@ -0,0 +1,230 @@
+package com.memory.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Size-class allocator for small objects. Slabs of slabSize bytes are taken from the buddy system
+// and cut into equal slots; free slots are tracked in a bitmap per slab. Requests larger than the
+// biggest size class go straight to the buddy system. Slab pages are owned by SLAB_OWNER there.
+public class SlabAllocator implements MemoryAllocator {
+    public static final String SLAB_OWNER = "slab";
+    public static final int[] DEFAULT_SIZE_CLASSES =
+            {8, 16, 24, 32, 48, 64, 80, 96, 128, 160, 192, 256, 320, 384, 512};
+
+    private final BuddySystem buddySystem;
+    private final int slabSize;
+    private final int[] sizeClasses;
+    // Size class index for every request size rounded up to 8 bytes
+    private final byte[] classIndex;
+    // Head of the list of slabs with at least one free slot, per size class
+    private final Slab[] partialSlabs;
+    // The one slab per size class kept when all its slots are free, or null
+    private final Slab[] emptySlabs;
+    private final Map<Integer, Slab> slabs;
+    private int slabUsedMemory;
+    private int allocationCount;
+
+    public SlabAllocator(BuddySystem buddySystem, int slabSize, int[] sizeClasses) {
+        if (slabSize <= 0 || (slabSize & (slabSize - 1)) != 0 || slabSize > buddySystem.getTotalSize()) {
+            throw new IllegalArgumentException("Slab size must be a power of 2 no larger than the arena");
+        }
+        for (int i = 0; i < sizeClasses.length; i++) {
+            if (sizeClasses[i] <= 0 || sizeClasses[i] % 8 != 0 || sizeClasses[i] > slabSize / 2
+                    || (i > 0 && sizeClasses[i] <= sizeClasses[i - 1])) {
+                throw new IllegalArgumentException("Size classes must be ascending multiples of 8 up to half a slab");
+            }
+        }
+        this.buddySystem = buddySystem;
+        this.slabSize = slabSize;
+        this.sizeClasses = sizeClasses.clone();
+        int maxClass = sizeClasses.length == 0 ? 0 : sizeClasses[sizeClasses.length - 1];
+        this.classIndex = new byte[maxClass / 8 + 1];
+        int index = 0;
+        for (int units = 1; units < classIndex.length; units++) {
+            while (sizeClasses[index] < units * 8) {
+                index++;
+            }
+            classIndex[units] = (byte) index;
+        }
+        this.partialSlabs = new Slab[sizeClasses.length];
+        this.emptySlabs = new Slab[sizeClasses.length];
+        this.slabs = new HashMap<>();
+    }
+
+    // Small arenas get smaller slabs and only the default classes that fit in half of one
+    public SlabAllocator(BuddySystem buddySystem) {
+        this(buddySystem, Math.min(4096, buddySystem.getTotalSize()),
+                defaultSizeClasses(Math.min(4096, buddySystem.getTotalSize())));
+    }
+
+    private static int[] defaultSizeClasses(int slabSize) {
+        int count = 0;
+        while (count < DEFAULT_SIZE_CLASSES.length && DEFAULT_SIZE_CLASSES[count] <= slabSize / 2) {
+            count++;
+        }
+        return Arrays.copyOf(DEFAULT_SIZE_CLASSES, count);
+    }
+
+    @Override
+    public Integer allocate(int size, String processId) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+
+        int units = (size + 7) >>> 3;
+        if (units >= classIndex.length) {
+            Integer address = buddySystem.allocate(size, processId);
+            if (address != null) {
+                allocationCount++;
+            }
+            return address;
+        }
+
+        int sizeClass = classIndex[units];
+        Slab slab = partialSlabs[sizeClass];
+        if (slab == null) {
+            slab = newSlab(sizeClass);
+            if (slab == null) {
+                return null;
+            }
+        }
+
+        int slot = slab.takeSlot();
+        if (emptySlabs[sizeClass] == slab) {
+            emptySlabs[sizeClass] = null;
+        }
+        if (slab.freeSlots == 0) {
+            unlinkPartial(slab);
+        }
+
+        slabUsedMemory += slab.slotSize;
+        allocationCount++;
+        return slab.baseAddress + slot * slab.slotSize;
+    }
+
+    private Slab newSlab(int sizeClass) {
+        Integer base = buddySystem.allocate(slabSize, SLAB_OWNER);
+        if (base == null) {
+            return null;
+        }
+        Slab slab = new Slab(base, sizeClasses[sizeClass], slabSize / sizeClasses[sizeClass], sizeClass);
+        slabs.put(base, slab);
+        linkPartial(slab);
+        return slab;
+    }
+
+    @Override
+    public boolean deallocate(int address) {
+        Slab slab = slabs.get(address & -slabSize);
+        if (slab == null) {
+            return buddySystem.deallocate(address);
+        }
+
+        int offset = address - slab.baseAddress;
+        if (offset % slab.slotSize != 0 || offset / slab.slotSize >= slab.slotCount
+                || !slab.releaseSlot(offset / slab.slotSize)) {
+            return false;
+        }
+
+        slabUsedMemory -= slab.slotSize;
+        if (slab.freeSlots == 1) {
+            linkPartial(slab);
+        }
+        // Keep one empty slab per class so a single object churning does not bounce pages
+        if (slab.freeSlots == slab.slotCount) {
+            if (emptySlabs[slab.sizeClass] == null) {
+                emptySlabs[slab.sizeClass] = slab;
+            } else {
+                unlinkPartial(slab);
+                slabs.remove(slab.baseAddress);
+                buddySystem.deallocate(slab.baseAddress);
+            }
+        }
+        return true;
+    }
+
+    private void linkPartial(Slab slab) {
+        Slab head = partialSlabs[slab.sizeClass];
+        slab.prev = null;
+        slab.next = head;
+        if (head != null) {
+            head.prev = slab;
+        }
+        partialSlabs[slab.sizeClass] = slab;
+    }
+
+    private void unlinkPartial(Slab slab) {
+        if (slab.prev != null) {
+            slab.prev.next = slab.next;
+        } else {
+            partialSlabs[slab.sizeClass] = slab.next;
+        }
+        if (slab.next != null) {
+            slab.next.prev = slab.prev;
+        }
+        slab.prev = null;
+        slab.next = null;
+    }
+
+    public BuddySystem getBuddySystem() { return buddySystem; }
+    public int getSlabSize() { return slabSize; }
+    public int getSlabCount() { return slabs.size(); }
+    public int getSlabMemory() { return slabs.size() * slabSize; }
+    public int getSlabUsedMemory() { return slabUsedMemory; }
+
+    // Getters for statistics; slab pages count as allocated in the buddy system whether or not
+    // their slots are in use
+    public int getTotalSize() { return buddySystem.getTotalSize(); }
+    public int getTotalAllocated() { return buddySystem.getTotalAllocated(); }
+    public int getFreeMemory() { return buddySystem.getFreeMemory(); }
+    public int getPeakMemoryUsage() { return buddySystem.getPeakMemoryUsage(); }
+    public int getAllocationCount() { return allocationCount; }
+    public int getFragmentationCount() { return buddySystem.getFragmentationCount(); }
+
+    private static final class Slab {
+        final int baseAddress;
+        final int slotSize;
+        final int slotCount;
+        final int sizeClass;
+        // Set bits mark free slots
+        final long[] freeBits;
+        int freeSlots;
+        int searchWord;
+        Slab prev;
+        Slab next;
+
+        Slab(int baseAddress, int slotSize, int slotCount, int sizeClass) {
+            this.baseAddress = baseAddress;
+            this.slotSize = slotSize;
+            this.slotCount = slotCount;
+            this.sizeClass = sizeClass;
+            this.freeBits = new long[(slotCount + 63) >>> 6];
+            for (int slot = 0; slot < slotCount; slot++) {
+                freeBits[slot >>> 6] |= 1L << slot;
+            }
+            this.freeSlots = slotCount;
+        }
+
+        int takeSlot() {
+            while (freeBits[searchWord] == 0) {
+                searchWord = (searchWord + 1) % freeBits.length;
+            }
+            long word = freeBits[searchWord];
+            int slot = (searchWord << 6) + Long.numberOfTrailingZeros(word);
+            freeBits[searchWord] = word & (word - 1);
+            freeSlots--;
+            return slot;
+        }
+
+        boolean releaseSlot(int slot) {
+            long bit = 1L << slot;
+            if ((freeBits[slot >>> 6] & bit) != 0) {
+                return false;
+            }
+            freeBits[slot >>> 6] |= bit;
+            freeSlots++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.memory.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-thread magazines of free blocks in front of a thread-safe allocator. Small requests are
+// served from the calling thread's magazine; the backing allocator is only touched to refill an
+// empty magazine or to drain an overflowing one, batchSize blocks at a time. Blocks sitting in a
+// magazine stay allocated in the backing allocator under CACHE_OWNER.
+public class ThreadCachingAllocator implements MemoryAllocator {
+    public static final String CACHE_OWNER = "thread-cache";
+
+    private final MemoryAllocator backing;
+    private final int maxCachedOrder;
+    private final int magazineCapacity;
+    private final int batchSize;
+    private final ThreadLocal<Magazine[]> magazines;
+    // Order of every block obtained for a magazine: positive while handed out to a caller,
+    // complemented (negative) while it sits in a magazine
+    private final Map<Integer, Integer> cacheableBlocks;
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
+    private final LongAdder refills;
+    private final LongAdder flushes;
+    private final LongAdder cachedMemory;
+
+    public ThreadCachingAllocator(MemoryAllocator backing, int maxCachedSize, int magazineCapacity, int batchSize) {
+        if (maxCachedSize <= 0) {
+            throw new IllegalArgumentException("Max cached size must be positive");
+        }
+        if (magazineCapacity <= 0 || batchSize <= 0 || batchSize > magazineCapacity) {
+            throw new IllegalArgumentException("Batch size must be between 1 and the magazine capacity");
+        }
+        this.backing = backing;
+        this.maxCachedOrder = orderOf(maxCachedSize);
+        this.magazineCapacity = magazineCapacity;
+        this.batchSize = batchSize;
+        this.magazines = ThreadLocal.withInitial(() -> new Magazine[maxCachedOrder + 1]);
+        this.cacheableBlocks = new ConcurrentHashMap<>();
+        this.cacheHits = new LongAdder();
+        this.cacheMisses = new LongAdder();
+        this.refills = new LongAdder();
+        this.flushes = new LongAdder();
+        this.cachedMemory = new LongAdder();
+    }
+
+    public ThreadCachingAllocator(MemoryAllocator backing) {
+        this(backing, 4096, 32, 16);
+    }
+
+    private static int orderOf(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    @Override
+    public Integer allocate(int size, String processId) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+
+        int order = orderOf(size);
+        if (order > maxCachedOrder) {
+            return backing.allocate(size, processId);
+        }
+
+        Magazine magazine = magazineFor(order);
+        if (magazine.count == 0) {
+            cacheMisses.increment();
+            refill(magazine, order);
+            if (magazine.count == 0) {
+                return null;
+            }
+        } else {
+            cacheHits.increment();
+        }
+
+        int address = magazine.addresses[--magazine.count];
+        cachedMemory.add(-(1L << order));
+        cacheableBlocks.put(address, order);
+        return address;
+    }
+
+    @Override
+    public boolean deallocate(int address) {
+        Integer order = cacheableBlocks.get(address);
+        if (order == null) {
+            return backing.deallocate(address);
+        }
+        if (order < 0 || !cacheableBlocks.replace(address, order, ~order)) {
+            return false;
+        }
+
+        Magazine magazine = magazineFor(order);
+        if (magazine.count == magazineCapacity) {
+            flush(magazine, order, batchSize);
+        }
+        magazine.addresses[magazine.count++] = address;
+        cachedMemory.add(1L << order);
+        return true;
+    }
+
+    private Magazine magazineFor(int order) {
+        Magazine[] perOrder = magazines.get();
+        Magazine magazine = perOrder[order];
+        if (magazine == null) {
+            magazine = new Magazine(magazineCapacity);
+            perOrder[order] = magazine;
+        }
+        return magazine;
+    }
+
+    private void refill(Magazine magazine, int order) {
+        refills.increment();
+        int blockSize = 1 << order;
+        int[] sizes = new int[batchSize];
+        int[] addresses = new int[batchSize];
+        Arrays.fill(sizes, blockSize);
+        backing.allocateBatch(sizes, CACHE_OWNER, addresses);
+        for (int address : addresses) {
+            if (address >= 0) {
+                magazine.addresses[magazine.count++] = address;
+                cacheableBlocks.put(address, ~order);
+                cachedMemory.add(blockSize);
+            }
+        }
+    }
+
+    private void flush(Magazine magazine, int order, int blocks) {
+        flushes.increment();
+        int count = Math.min(blocks, magazine.count);
+        int[] addresses = Arrays.copyOfRange(magazine.addresses, magazine.count - count, magazine.count);
+        magazine.count -= count;
+        for (int address : addresses) {
+            cacheableBlocks.remove(address);
+        }
+        backing.deallocateBatch(addresses);
+        cachedMemory.add(-((long) count << order));
+    }
+
+    // Returns every block cached by the calling thread to the backing allocator.
+    // Threads should call this before they exit, otherwise their cached blocks stay allocated.
+    public void flushThreadCache() {
+        Magazine[] perOrder = magazines.get();
+        for (int order = 0; order <= maxCachedOrder; order++) {
+            if (perOrder[order] != null && perOrder[order].count > 0) {
+                flush(perOrder[order], order, perOrder[order].count);
+            }
+        }
+    }
+
+    public MemoryAllocator getBacking() { return backing; }
+
+    // Cache statistics
+    public long getCacheHits() { return cacheHits.sum(); }
+    public long getCacheMisses() { return cacheMisses.sum(); }
+    public long getRefillCount() { return refills.sum(); }
+    public long getFlushCount() { return flushes.sum(); }
+    public long getCachedMemory() { return cachedMemory.sum(); }
+
+    public double getCacheHitRate() {
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    // Getters for statistics; blocks held in magazines count as allocated in the backing allocator
+    public int getTotalSize() { return backing.getTotalSize(); }
+    public int getTotalAllocated() { return backing.getTotalAllocated(); }
+    public int getFreeMemory() { return backing.getFreeMemory(); }
+    public int getPeakMemoryUsage() { return backing.getPeakMemoryUsage(); }
+    public int getAllocationCount() { return backing.getAllocationCount(); }
+    public int getFragmentationCount() { return backing.getFragmentationCount(); }
+
+    private static final class Magazine {
+        final int[] addresses;
+        int count;
+
+        Magazine(int capacity) {
+            this.addresses = new int[capacity];
+        }
+    }
+}
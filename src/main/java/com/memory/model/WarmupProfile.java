@@ -0,0 +1,101 @@
+package com.memory.model;
+
+import com.memory.metrics.AllocatorMetrics;
+
+import java.util.Iterator;
+
+// Number of free blocks per order that BuddySystem.warmUp should prepare. A profile is captured
+// from the live blocks of a running allocator, taken from its allocation metrics, or written in
+// config as comma-separated size:count pairs such as "64:1000,4096:50" (sizes are rounded up to
+// a power of two). toString() produces the config format, so a captured profile can be saved.
+public class WarmupProfile {
+    // blockCounts[order] = blocks of size 1 << order
+    private final long[] blockCounts;
+
+    public WarmupProfile(long[] blockCounts) {
+        for (long count : blockCounts) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Block counts must not be negative");
+            }
+        }
+        this.blockCounts = blockCounts.clone();
+    }
+
+    // The allocator's current working set: one block per live allocation
+    public static WarmupProfile capture(BuddySystem buddySystem) {
+        long[] counts = new long[Integer.numberOfTrailingZeros(buddySystem.getTotalSize()) + 1];
+        Iterator<MemoryBlock> blocks = buddySystem.blocks(0, buddySystem.getTotalSize());
+        while (blocks.hasNext()) {
+            MemoryBlock block = blocks.next();
+            if (block.isAllocated()) {
+                counts[Integer.numberOfTrailingZeros(block.getSize())]++;
+            }
+        }
+        return new WarmupProfile(counts);
+    }
+
+    // Every successful allocation recorded while metrics were enabled. The counts are totals
+    // rather than a working set, so only their proportions matter; warmUp scales them to its budget.
+    public static WarmupProfile fromMetrics(AllocatorMetrics metrics) {
+        long[] counts = new long[metrics.getMaxOrder() + 1];
+        for (int order = 0; order < counts.length; order++) {
+            counts[order] = metrics.getAllocationCount(order);
+        }
+        return new WarmupProfile(counts);
+    }
+
+    public static WarmupProfile parse(String spec) {
+        long[] counts = new long[31];
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected size:count, got '" + entry.trim() + "'");
+            }
+            int size;
+            long count;
+            try {
+                size = Integer.parseInt(parts[0].trim());
+                count = Long.parseLong(parts[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected size:count, got '" + entry.trim() + "'");
+            }
+            if (size <= 0 || size > 1 << 30 || count < 0) {
+                throw new IllegalArgumentException("Invalid size or count in '" + entry.trim() + "'");
+            }
+            counts[size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1)] += count;
+        }
+        return new WarmupProfile(counts);
+    }
+
+    public int getMaxOrder() { return blockCounts.length - 1; }
+
+    public long getBlockCount(int order) {
+        return order >= 0 && order < blockCounts.length ? blockCounts[order] : 0;
+    }
+
+    // Bytes covered by the blocks of the orders below maxOrder
+    public long getTotalBytes(int maxOrder) {
+        long bytes = 0;
+        for (int order = 0; order < Math.min(maxOrder, blockCounts.length); order++) {
+            bytes += blockCounts[order] << order;
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder spec = new StringBuilder();
+        for (int order = 0; order < blockCounts.length; order++) {
+            if (blockCounts[order] > 0) {
+                if (spec.length() > 0) {
+                    spec.append(',');
+                }
+                spec.append(1L << order).append(':').append(blockCounts[order]);
+            }
+        }
+        return spec.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.memory.model;
+
+// What BuddySystem.warmUp prepared and how much of it allocations have used since
+public class WarmupReport {
+    private final int[] preparedBlocks;
+    private final long splits;
+    private final long setupNanos;
+    private final long allocations;
+    private final long hits;
+    private final long splitAllocations;
+    private final long consumedBlocks;
+    private final long remainingBlocks;
+
+    public WarmupReport(int[] preparedBlocks, long splits, long setupNanos, long allocations, long hits,
+                        long splitAllocations, long consumedBlocks, long remainingBlocks) {
+        this.preparedBlocks = preparedBlocks;
+        this.splits = splits;
+        this.setupNanos = setupNanos;
+        this.allocations = allocations;
+        this.hits = hits;
+        this.splitAllocations = splitAllocations;
+        this.consumedBlocks = consumedBlocks;
+        this.remainingBlocks = remainingBlocks;
+    }
+
+    // Free blocks prepared per order; index i counts blocks of size 1 << i
+    public int[] getPreparedBlocks() { return preparedBlocks.clone(); }
+    public int getPreparedBlocks(int order) { return order < preparedBlocks.length ? preparedBlocks[order] : 0; }
+
+    public long getPreparedBlockCount() {
+        long total = 0;
+        for (int count : preparedBlocks) {
+            total += count;
+        }
+        return total;
+    }
+
+    public long getPreparedBytes() {
+        long bytes = 0;
+        for (int order = 0; order < preparedBlocks.length; order++) {
+            bytes += (long) preparedBlocks[order] << order;
+        }
+        return bytes;
+    }
+
+    // Splits done up front, which the first allocations no longer pay for
+    public long getSplits() { return splits; }
+    public long getSetupNanos() { return setupNanos; }
+    public long getAllocations() { return allocations; }
+    // Allocations served by a prepared block of exactly the requested order
+    public long getHits() { return hits; }
+    // Allocations since warm-up that still had to split a block
+    public long getSplitAllocations() { return splitAllocations; }
+    // Prepared blocks taken by allocations, whether or not they had to be split further
+    public long getConsumedBlocks() { return consumedBlocks; }
+    // Prepared blocks still waiting in the free lists
+    public long getRemainingBlocks() { return remainingBlocks; }
+
+    // Prepared blocks merged away by coalescing before any allocation used them
+    public long getReclaimedBlocks() {
+        return Math.max(0, getPreparedBlockCount() - consumedBlocks - remainingBlocks);
+    }
+
+    // Share of the allocations since warm-up served by a prepared block without splitting
+    public double getHitRate() {
+        return allocations == 0 ? 0.0 : (double) hits / allocations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Prepared %d blocks (%d bytes) with %d splits in %.1f us%n"
+                        + "Allocations since: %d, hits: %d (%.1f%%), split allocations: %d%n"
+                        + "Prepared blocks consumed: %d, remaining: %d, reclaimed: %d",
+                getPreparedBlockCount(), getPreparedBytes(), splits, setupNanos / 1e3,
+                allocations, hits, getHitRate() * 100, splitAllocations,
+                consumedBlocks, remainingBlocks, getReclaimedBlocks());
+    }
+}
@@ -0,0 +1,286 @@
+package com.memory.server;
+
+import com.memory.model.MemoryAllocator;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+// Blocking client for AllocatorServer. The MemoryAllocator methods make one round trip each. For
+// pipelining, queue requests with the send methods, push them out with flush() and read the
+// responses in the same order with the matching receive methods. The server stops reading a
+// connection whose responses are not being read, so keep the number of outstanding requests
+// bounded (a few thousand is fine).
+public class AllocatorClient implements MemoryAllocator, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer out;
+    private final ByteBuffer in;
+    private String processId;
+    private int pending;
+
+    public AllocatorClient(SocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+        this.out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        in.flip();
+    }
+
+    public void sendSetProcess(String processId) throws IOException {
+        byte[] name = processId.getBytes(StandardCharsets.UTF_8);
+        if (name.length > 255) {
+            throw new IllegalArgumentException("Process ID is longer than 255 bytes");
+        }
+        reserve(2 + name.length);
+        out.put((byte) ServerProtocol.SET_PROCESS).put((byte) name.length).put(name);
+        this.processId = processId;
+    }
+
+    public void sendAllocate(int size) throws IOException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        reserve(5);
+        out.put((byte) ServerProtocol.ALLOCATE).putInt(size);
+    }
+
+    public void sendDeallocate(int address) throws IOException {
+        reserve(5);
+        out.put((byte) ServerProtocol.DEALLOCATE).putInt(address);
+    }
+
+    public void sendAllocateBatch(int[] sizes, int offset, int count) throws IOException {
+        checkBatch(count);
+        reserve(3 + 4 * count);
+        out.put((byte) ServerProtocol.ALLOCATE_BATCH).putShort((short) count);
+        for (int i = 0; i < count; i++) {
+            out.putInt(sizes[offset + i]);
+        }
+    }
+
+    public void sendDeallocateBatch(int[] addresses, int offset, int count) throws IOException {
+        checkBatch(count);
+        reserve(3 + 4 * count);
+        out.put((byte) ServerProtocol.DEALLOCATE_BATCH).putShort((short) count);
+        for (int i = 0; i < count; i++) {
+            out.putInt(addresses[offset + i]);
+        }
+    }
+
+    public void sendStats() throws IOException {
+        reserve(1);
+        out.put((byte) ServerProtocol.STATS);
+    }
+
+    private static void checkBatch(int count) {
+        if (count < 0 || count > ServerProtocol.MAX_BATCH) {
+            throw new IllegalArgumentException("Batch size must be between 0 and " + ServerProtocol.MAX_BATCH);
+        }
+    }
+
+    // Makes room for a request, writing out the queued ones if needed
+    private void reserve(int bytes) throws IOException {
+        if (out.remaining() < bytes) {
+            flush();
+        }
+        pending++;
+    }
+
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    // Requests sent whose responses have not been received yet
+    public int getPendingCount() { return pending; }
+
+    public boolean receiveStatus() throws IOException {
+        return readStatus() == ServerProtocol.OK;
+    }
+
+    // The allocated address, or -1 if the allocation failed
+    public int receiveAllocate() throws IOException {
+        readStatus();
+        require(4);
+        return in.getInt();
+    }
+
+    public boolean receiveDeallocate() throws IOException {
+        return receiveStatus();
+    }
+
+    // Stores the addresses at addresses[offset..], -1 for failed allocations; returns how many
+    // were allocated
+    public int receiveAllocateBatch(int[] addresses, int offset) throws IOException {
+        readStatus();
+        require(2);
+        int count = in.getShort() & 0xFFFF;
+        int allocated = 0;
+        for (int i = 0; i < count; i++) {
+            require(4);
+            addresses[offset + i] = in.getInt();
+            if (addresses[offset + i] >= 0) {
+                allocated++;
+            }
+        }
+        return allocated;
+    }
+
+    // Number of blocks freed
+    public int receiveDeallocateBatch() throws IOException {
+        readStatus();
+        require(4);
+        return in.getInt();
+    }
+
+    public ServerStats receiveStats() throws IOException {
+        readStatus();
+        require(4 * ServerProtocol.STATS_FIELDS);
+        return new ServerStats(in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt());
+    }
+
+    private byte readStatus() throws IOException {
+        if (pending == 0) {
+            throw new IllegalStateException("No response pending");
+        }
+        require(1);
+        pending--;
+        byte status = in.get();
+        if (status == ServerProtocol.BAD_REQUEST) {
+            throw new IOException("Request rejected by the server");
+        }
+        return status;
+    }
+
+    private void require(int bytes) throws IOException {
+        while (in.remaining() < bytes) {
+            in.compact();
+            int read = channel.read(in);
+            in.flip();
+            if (read < 0) {
+                throw new EOFException("Connection closed by the server");
+            }
+        }
+    }
+
+    private void checkIdle() {
+        if (pending > 0) {
+            throw new IllegalStateException(pending + " pipelined responses have not been received");
+        }
+    }
+
+    @Override
+    public Integer allocate(int size, String processId) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        checkIdle();
+        try {
+            boolean switchProcess = processId != null && !processId.equals(this.processId);
+            if (switchProcess) {
+                sendSetProcess(processId);
+            }
+            sendAllocate(size);
+            flush();
+            if (switchProcess) {
+                receiveStatus();
+            }
+            int address = receiveAllocate();
+            return address < 0 ? null : address;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean deallocate(int address) {
+        checkIdle();
+        try {
+            sendDeallocate(address);
+            flush();
+            return receiveDeallocate();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Batches go out as ALLOCATE_BATCH and DEALLOCATE_BATCH requests, all pipelined
+    @Override
+    public int allocateBatch(int[] sizes, String processId, int[] addresses) {
+        if (addresses.length < sizes.length) {
+            throw new IllegalArgumentException("Address array is smaller than the size array");
+        }
+        checkIdle();
+        try {
+            boolean switchProcess = processId != null && !processId.equals(this.processId);
+            if (switchProcess) {
+                sendSetProcess(processId);
+            }
+            for (int offset = 0; offset < sizes.length; offset += ServerProtocol.MAX_BATCH) {
+                sendAllocateBatch(sizes, offset, Math.min(ServerProtocol.MAX_BATCH, sizes.length - offset));
+            }
+            flush();
+            if (switchProcess) {
+                receiveStatus();
+            }
+            int allocated = 0;
+            for (int offset = 0; offset < sizes.length; offset += ServerProtocol.MAX_BATCH) {
+                allocated += receiveAllocateBatch(addresses, offset);
+            }
+            return allocated;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int deallocateBatch(int[] addresses) {
+        checkIdle();
+        try {
+            for (int offset = 0; offset < addresses.length; offset += ServerProtocol.MAX_BATCH) {
+                sendDeallocateBatch(addresses, offset, Math.min(ServerProtocol.MAX_BATCH, addresses.length - offset));
+            }
+            flush();
+            int freed = 0;
+            while (pending > 0) {
+                freed += receiveDeallocateBatch();
+            }
+            return freed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ServerStats getStats() {
+        checkIdle();
+        try {
+            sendStats();
+            flush();
+            return receiveStats();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Getters for statistics, one round trip each; use getStats() to read them together
+    public int getTotalSize() { return getStats().getTotalSize(); }
+    public int getTotalAllocated() { return getStats().getTotalAllocated(); }
+    public int getFreeMemory() { return getStats().getFreeMemory(); }
+    public int getPeakMemoryUsage() { return getStats().getPeakMemoryUsage(); }
+    public int getAllocationCount() { return getStats().getAllocationCount(); }
+    public int getFragmentationCount() { return getStats().getFragmentationCount(); }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,313 @@
+package com.memory.server;
+
+import com.memory.model.BuddySystem;
+import com.memory.model.MemoryAllocator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Headless front-end that serves one allocator to other processes over a loopback TCP or Unix
+// domain socket, using the protocol in ServerProtocol. A single selector thread handles every
+// connection. All complete requests received in one read are executed under a single lock on the
+// allocator and their responses go out in a single write, so pipelining clients pay for the lock
+// and the system calls once per batch instead of once per request. A connection stops being read
+// while its responses cannot be written, which bounds the memory held per client.
+public class AllocatorServer implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SocketAddress address;
+    private final MemoryAllocator allocator;
+    private final LongAdder requestCount;
+    private final LongAdder batchCount;
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Thread eventLoop;
+    private volatile boolean running;
+    private int nextConnectionId;
+    private volatile int connectionCount;
+
+    // Other users of the allocator must synchronize on it, like the server does
+    public AllocatorServer(SocketAddress address, MemoryAllocator allocator) {
+        this.address = address;
+        this.allocator = allocator;
+        this.requestCount = new LongAdder();
+        this.batchCount = new LongAdder();
+    }
+
+    public synchronized void start() throws IOException {
+        if (eventLoop != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        serverChannel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX) : ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        eventLoop = new Thread(this::run, "allocator-server");
+        eventLoop.start();
+    }
+
+    // The bound address; with port 0 this holds the port that was picked
+    public SocketAddress getLocalAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isValid()) {
+                            service(key);
+                        }
+                    } catch (IOException e) {
+                        closeConnection(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            running = false;
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(channel, "client-" + nextConnectionId++));
+        connectionCount++;
+    }
+
+    private void service(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (key.isWritable() && !flush(connection)) {
+            return;
+        }
+        if (key.isReadable() && connection.channel.read(connection.in) < 0) {
+            closeConnection(key);
+            return;
+        }
+
+        // Requests held back because the output buffer was full are handled as soon as it has
+        // been written out, since the client may not send anything more until it sees them
+        boolean drained;
+        boolean more;
+        do {
+            more = handleRequests(connection);
+            drained = flush(connection);
+        } while (more && drained && !connection.closing);
+        if (connection.closing && drained) {
+            closeConnection(key);
+            return;
+        }
+        key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+    }
+
+    // Returns true if a complete request is still waiting in the input buffer
+    private boolean handleRequests(Connection connection) {
+        ByteBuffer in = connection.in;
+        ByteBuffer out = connection.out;
+        in.flip();
+        int length = ServerProtocol.requestLength(in);
+        if (length >= 0 && in.remaining() >= length) {
+            int handled = 0;
+            synchronized (allocator) {
+                // Stops once a full-sized response might not fit; the rest waits for the next write
+                while (length >= 0 && in.remaining() >= length && !connection.closing
+                        && out.remaining() >= ServerProtocol.MAX_RESPONSE_SIZE) {
+                    handleRequest(connection, in, out);
+                    handled++;
+                    length = ServerProtocol.requestLength(in);
+                }
+            }
+            requestCount.add(handled);
+            batchCount.increment();
+        }
+        boolean more = length >= 0 && in.remaining() >= length;
+        in.compact();
+        return more;
+    }
+
+    private void handleRequest(Connection connection, ByteBuffer in, ByteBuffer out) {
+        int opcode = in.get();
+        switch (opcode) {
+            case ServerProtocol.SET_PROCESS: {
+                byte[] name = new byte[in.get() & 0xFF];
+                in.get(name);
+                connection.processId = new String(name, StandardCharsets.UTF_8);
+                out.put(ServerProtocol.OK);
+                break;
+            }
+            case ServerProtocol.ALLOCATE: {
+                int size = in.getInt();
+                if (size <= 0) {
+                    out.put(ServerProtocol.BAD_REQUEST).putInt(-1);
+                    break;
+                }
+                Integer address = allocator.allocate(size, connection.processId);
+                out.put(address == null ? ServerProtocol.FAILED : ServerProtocol.OK).putInt(address == null ? -1 : address);
+                break;
+            }
+            case ServerProtocol.DEALLOCATE:
+                out.put(deallocate(connection, in.getInt()) ? ServerProtocol.OK : ServerProtocol.FAILED);
+                break;
+            case ServerProtocol.ALLOCATE_BATCH: {
+                int count = in.getShort() & 0xFFFF;
+                if (count > ServerProtocol.MAX_BATCH) {
+                    rejectRequest(connection, out);
+                    break;
+                }
+                out.put(ServerProtocol.OK).putShort((short) count);
+                for (int i = 0; i < count; i++) {
+                    int size = in.getInt();
+                    Integer address = size > 0 ? allocator.allocate(size, connection.processId) : null;
+                    out.putInt(address == null ? -1 : address);
+                }
+                break;
+            }
+            case ServerProtocol.DEALLOCATE_BATCH: {
+                int count = in.getShort() & 0xFFFF;
+                if (count > ServerProtocol.MAX_BATCH) {
+                    rejectRequest(connection, out);
+                    break;
+                }
+                int freed = 0;
+                for (int i = 0; i < count; i++) {
+                    if (deallocate(connection, in.getInt())) {
+                        freed++;
+                    }
+                }
+                out.put(ServerProtocol.OK).putInt(freed);
+                break;
+            }
+            case ServerProtocol.STATS:
+                out.put(ServerProtocol.OK)
+                        .putInt(allocator.getTotalSize())
+                        .putInt(allocator.getTotalAllocated())
+                        .putInt(allocator.getFreeMemory())
+                        .putInt(allocator.getPeakMemoryUsage())
+                        .putInt(allocator.getAllocationCount())
+                        .putInt(allocator.getFragmentationCount());
+                break;
+            default:
+                rejectRequest(connection, out);
+        }
+    }
+
+    // A connection may only free blocks allocated under its own process id
+    private boolean deallocate(Connection connection, int address) {
+        return connection.processId.equals(allocator.getOwner(address)) && allocator.deallocate(address);
+    }
+
+    private void rejectRequest(Connection connection, ByteBuffer out) {
+        out.put(ServerProtocol.BAD_REQUEST);
+        connection.closing = true;
+    }
+
+    // Returns true when every pending response has been written
+    private boolean flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        out.flip();
+        connection.channel.write(out);
+        boolean drained = !out.hasRemaining();
+        out.compact();
+        return drained;
+    }
+
+    private void closeConnection(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+        connectionCount--;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to do with it
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (eventLoop == null) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            eventLoop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        serverChannel.close();
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+        eventLoop = null;
+    }
+
+    public MemoryAllocator getAllocator() { return allocator; }
+    public boolean isRunning() { return running; }
+
+    // Server statistics; a batch is one group of requests executed under a single lock
+    public long getRequestCount() { return requestCount.sum(); }
+    public long getBatchCount() { return batchCount.sum(); }
+    public int getConnectionCount() { return connectionCount; }
+
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in;
+        final ByteBuffer out;
+        String processId;
+        boolean closing;
+
+        Connection(SocketChannel channel, String processId) {
+            this.channel = channel;
+            this.in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            this.out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            this.processId = processId;
+        }
+    }
+
+    // Usage: AllocatorServer <arena size> <port | unix socket path>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: AllocatorServer <arena size> <port | unix socket path>");
+            System.exit(1);
+        }
+        SocketAddress address = ServerProtocol.parseAddress(args[1]);
+        AllocatorServer server = new AllocatorServer(address, new BuddySystem(Integer.parseInt(args[0])));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> closeQuietly(server)));
+        server.start();
+        System.out.println("Serving a " + args[0] + " byte arena on " + server.getLocalAddress());
+    }
+}
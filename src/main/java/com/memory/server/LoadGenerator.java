@@ -0,0 +1,187 @@
+package com.memory.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Drives an AllocatorServer from several connections, one thread each. Every thread keeps a set
+// of live blocks between empty and full, sends a window of pipelineDepth random allocate or
+// deallocate requests, flushes them together and then reads the responses. Latencies go into a
+// log-linear histogram with 16 buckets per power of two, so recording allocates nothing.
+public class LoadGenerator {
+    static final int LATENCY_BUCKETS = 60 << 4;
+
+    private final SocketAddress address;
+    private final int connections;
+    private final int pipelineDepth;
+    private final int minSize;
+    private final int maxSize;
+    private final int liveBlocks;
+
+    public LoadGenerator(SocketAddress address, int connections, int pipelineDepth,
+                         int minSize, int maxSize, int liveBlocks) {
+        if (connections <= 0 || pipelineDepth <= 0 || liveBlocks <= 0) {
+            throw new IllegalArgumentException("Connections, pipeline depth and live blocks must be positive");
+        }
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid size range");
+        }
+        this.address = address;
+        this.connections = connections;
+        this.pipelineDepth = pipelineDepth;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.liveBlocks = liveBlocks;
+    }
+
+    public LoadReport run(long durationNanos) throws IOException, InterruptedException {
+        Worker[] workers = new Worker[connections];
+        Thread[] threads = new Thread[connections];
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        for (int i = 0; i < connections; i++) {
+            workers[i] = new Worker("load-" + i, i, deadline, failure);
+            threads[i] = new Thread(workers[i], "load-generator-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        long operations = 0;
+        long allocations = 0;
+        long failedAllocations = 0;
+        long deallocations = 0;
+        long[] latencyCounts = new long[LATENCY_BUCKETS];
+        for (Worker worker : workers) {
+            operations += worker.allocations + worker.deallocations;
+            allocations += worker.allocations;
+            failedAllocations += worker.failedAllocations;
+            deallocations += worker.deallocations;
+            for (int bucket = 0; bucket < LATENCY_BUCKETS; bucket++) {
+                latencyCounts[bucket] += worker.latencyCounts[bucket];
+            }
+        }
+        return new LoadReport(connections, pipelineDepth, operations, allocations, failedAllocations,
+                deallocations, elapsed, latencyCounts);
+    }
+
+    // Values below 16 get their own bucket; above that, the top 4 bits below the leading one
+    // select one of 16 buckets within the power of two
+    static int latencyBucket(long nanos) {
+        if (nanos < 16) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int mantissa = (int) (nanos >>> (exponent - 4)) & 15;
+        return ((exponent - 3) << 4) | mantissa;
+    }
+
+    static long latencyUpperBound(int bucket) {
+        if (bucket < 16) {
+            return bucket;
+        }
+        int exponent = (bucket >>> 4) + 3;
+        return ((17L + (bucket & 15)) << (exponent - 4)) - 1;
+    }
+
+    private final class Worker implements Runnable {
+        private final String processId;
+        private final long seed;
+        private final long deadline;
+        private final AtomicReference<IOException> failure;
+        final long[] latencyCounts = new long[LATENCY_BUCKETS];
+        long allocations;
+        long failedAllocations;
+        long deallocations;
+
+        Worker(String processId, long seed, long deadline, AtomicReference<IOException> failure) {
+            this.processId = processId;
+            this.seed = seed;
+            this.deadline = deadline;
+            this.failure = failure;
+        }
+
+        @Override
+        public void run() {
+            try (AllocatorClient client = new AllocatorClient(address)) {
+                client.sendSetProcess(processId);
+                client.flush();
+                client.receiveStatus();
+
+                SplittableRandom random = new SplittableRandom(seed);
+                int[] live = new int[liveBlocks];
+                int liveCount = 0;
+                boolean[] allocating = new boolean[pipelineDepth];
+                while (System.nanoTime() < deadline) {
+                    int pendingAllocations = 0;
+                    int window = 0;
+                    while (window < pipelineDepth) {
+                        // Room is kept for the addresses of allocations still in flight
+                        boolean canAllocate = liveCount + pendingAllocations < live.length;
+                        if (canAllocate && (liveCount == 0 || random.nextBoolean())) {
+                            client.sendAllocate(random.nextInt(minSize, maxSize + 1));
+                            pendingAllocations++;
+                            allocating[window++] = true;
+                        } else if (liveCount > 0) {
+                            int victim = random.nextInt(liveCount);
+                            client.sendDeallocate(live[victim]);
+                            live[victim] = live[--liveCount];
+                            allocating[window++] = false;
+                        } else {
+                            break;
+                        }
+                    }
+                    long sent = System.nanoTime();
+                    client.flush();
+                    for (int i = 0; i < window; i++) {
+                        if (allocating[i]) {
+                            int address = client.receiveAllocate();
+                            allocations++;
+                            if (address < 0) {
+                                failedAllocations++;
+                            } else {
+                                live[liveCount++] = address;
+                            }
+                        } else {
+                            client.receiveDeallocate();
+                            deallocations++;
+                        }
+                        latencyCounts[latencyBucket(System.nanoTime() - sent)]++;
+                    }
+                }
+
+                // Leave the arena as it was found
+                for (int offset = 0; offset < liveCount; offset += ServerProtocol.MAX_BATCH) {
+                    client.sendDeallocateBatch(live, offset, Math.min(ServerProtocol.MAX_BATCH, liveCount - offset));
+                }
+                client.flush();
+                while (client.getPendingCount() > 0) {
+                    client.receiveDeallocateBatch();
+                }
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    // Usage: LoadGenerator <port | unix socket path> [connections] [pipeline depth] [seconds]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println("Usage: LoadGenerator <port | unix socket path> [connections] [pipeline depth] [seconds]");
+            System.exit(1);
+        }
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int pipelineDepth = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        LoadGenerator generator = new LoadGenerator(ServerProtocol.parseAddress(args[0]),
+                connections, pipelineDepth, 16, 4096, 1024);
+        System.out.println(generator.run(seconds * 1_000_000_000L));
+    }
+}
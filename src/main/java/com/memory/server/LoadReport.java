@@ -0,0 +1,67 @@
+package com.memory.server;
+
+public class LoadReport {
+    private final int connections;
+    private final int pipelineDepth;
+    private final long operations;
+    private final long allocations;
+    private final long failedAllocations;
+    private final long deallocations;
+    private final long elapsedNanos;
+    private final long[] latencyCounts;
+
+    public LoadReport(int connections, int pipelineDepth, long operations, long allocations,
+                      long failedAllocations, long deallocations, long elapsedNanos, long[] latencyCounts) {
+        this.connections = connections;
+        this.pipelineDepth = pipelineDepth;
+        this.operations = operations;
+        this.allocations = allocations;
+        this.failedAllocations = failedAllocations;
+        this.deallocations = deallocations;
+        this.elapsedNanos = elapsedNanos;
+        this.latencyCounts = latencyCounts;
+    }
+
+    public int getConnections() { return connections; }
+    public int getPipelineDepth() { return pipelineDepth; }
+    public long getOperations() { return operations; }
+    public long getAllocations() { return allocations; }
+    public long getFailedAllocations() { return failedAllocations; }
+    public long getDeallocations() { return deallocations; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0.0 : operations / (elapsedNanos / 1e9);
+    }
+
+    // Round-trip latency in nanoseconds at the given percentile (0-100), from the time a request
+    // was flushed to the time its response was read; accurate to about 6%
+    public long getLatencyPercentile(double percentile) {
+        long total = 0;
+        for (long count : latencyCounts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < latencyCounts.length; bucket++) {
+            seen += latencyCounts[bucket];
+            if (seen >= target) {
+                return LoadGenerator.latencyUpperBound(bucket);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d connections, pipeline depth %d: %d operations in %.1f ms, %.0f ops/s%n"
+                        + "Allocations: %d (%d failed), deallocations: %d%n"
+                        + "Latency p50: %.1f us, p99: %.1f us, p999: %.1f us",
+                connections, pipelineDepth, operations, elapsedNanos / 1e6, getThroughput(),
+                allocations, failedAllocations, deallocations,
+                getLatencyPercentile(50) / 1e3, getLatencyPercentile(99) / 1e3, getLatencyPercentile(99.9) / 1e3);
+    }
+}
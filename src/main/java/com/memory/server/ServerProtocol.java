@@ -0,0 +1,75 @@
+package com.memory.server;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+
+// Binary request/response layout. Numbers are big-endian; every request starts with a one-byte
+// opcode and every response with a one-byte status. Responses come back in request order, so a
+// client may pipeline any number of requests before reading.
+//   SET_PROCESS:      u8 length, UTF-8 bytes   -> status
+//   ALLOCATE:         i32 size                 -> status, i32 address (-1 = failed)
+//   DEALLOCATE:       i32 address              -> status
+//   ALLOCATE_BATCH:   u16 count, i32 size * n  -> status, u16 count, i32 address * n
+//   DEALLOCATE_BATCH: u16 count, i32 addr * n  -> status, i32 freed
+//   STATS:                                     -> status, i32 total size, allocated, free, peak,
+//                                                 allocation count, fragmentation count
+// A BAD_REQUEST response to an unknown opcode or an oversized batch is the last one sent on the
+// connection, since the rest of the stream can no longer be framed. A connection can only free
+// blocks allocated under its current process id; freeing any other address fails.
+final class ServerProtocol {
+    static final int SET_PROCESS = 1;
+    static final int ALLOCATE = 2;
+    static final int DEALLOCATE = 3;
+    static final int ALLOCATE_BATCH = 4;
+    static final int DEALLOCATE_BATCH = 5;
+    static final int STATS = 6;
+
+    static final byte OK = 0;
+    static final byte FAILED = 1;
+    static final byte BAD_REQUEST = 2;
+
+    static final int MAX_BATCH = 1024;
+    static final int MAX_REQUEST_SIZE = 3 + 4 * MAX_BATCH;
+    static final int MAX_RESPONSE_SIZE = 3 + 4 * MAX_BATCH;
+    static final int STATS_FIELDS = 6;
+
+    private ServerProtocol() {
+    }
+
+    // Length of the request at the buffer position, or -1 if its header is not complete yet.
+    // Unknown opcodes and oversized batches report their header length so they can be rejected.
+    static int requestLength(ByteBuffer in) {
+        if (!in.hasRemaining()) {
+            return -1;
+        }
+        int position = in.position();
+        switch (in.get(position)) {
+            case SET_PROCESS:
+                return in.remaining() < 2 ? -1 : 2 + (in.get(position + 1) & 0xFF);
+            case ALLOCATE:
+            case DEALLOCATE:
+                return 5;
+            case ALLOCATE_BATCH:
+            case DEALLOCATE_BATCH:
+                if (in.remaining() < 3) {
+                    return -1;
+                }
+                int count = in.getShort(position + 1) & 0xFFFF;
+                return count > MAX_BATCH ? 3 : 3 + 4 * count;
+            default:
+                return 1;
+        }
+    }
+
+    // A port number binds to the loopback interface, anything else is a Unix domain socket path
+    static SocketAddress parseAddress(String address) {
+        try {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+        } catch (NumberFormatException e) {
+            return UnixDomainSocketAddress.of(address);
+        }
+    }
+}
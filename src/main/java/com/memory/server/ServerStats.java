@@ -0,0 +1,34 @@
+package com.memory.server;
+
+// Allocator statistics as reported by a STATS request
+public class ServerStats {
+    private final int totalSize;
+    private final int totalAllocated;
+    private final int freeMemory;
+    private final int peakMemoryUsage;
+    private final int allocationCount;
+    private final int fragmentationCount;
+
+    public ServerStats(int totalSize, int totalAllocated, int freeMemory, int peakMemoryUsage,
+                       int allocationCount, int fragmentationCount) {
+        this.totalSize = totalSize;
+        this.totalAllocated = totalAllocated;
+        this.freeMemory = freeMemory;
+        this.peakMemoryUsage = peakMemoryUsage;
+        this.allocationCount = allocationCount;
+        this.fragmentationCount = fragmentationCount;
+    }
+
+    public int getTotalSize() { return totalSize; }
+    public int getTotalAllocated() { return totalAllocated; }
+    public int getFreeMemory() { return freeMemory; }
+    public int getPeakMemoryUsage() { return peakMemoryUsage; }
+    public int getAllocationCount() { return allocationCount; }
+    public int getFragmentationCount() { return fragmentationCount; }
+
+    @Override
+    public String toString() {
+        return String.format("Total size: %d, allocated: %d, free: %d, peak: %d, allocations: %d, fragmentation: %d",
+                totalSize, totalAllocated, freeMemory, peakMemoryUsage, allocationCount, fragmentationCount);
+    }
+}
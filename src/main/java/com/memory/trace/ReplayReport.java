@@ -0,0 +1,78 @@
+package com.memory.trace;
+
+import java.util.List;
+
+public class ReplayReport {
+    private final long eventCount;
+    private final long allocations;
+    private final long deallocations;
+    private final long failedAllocations;
+    private final long skippedEvents;
+    private final long firstFailureEvent;
+    private final int firstFailureSize;
+    private final int peakMemoryUsage;
+    private final long elapsedNanos;
+    private final List<Sample> timeline;
+
+    public ReplayReport(long eventCount, long allocations, long deallocations, long failedAllocations,
+                        long skippedEvents, long firstFailureEvent, int firstFailureSize,
+                        int peakMemoryUsage, long elapsedNanos, List<Sample> timeline) {
+        this.eventCount = eventCount;
+        this.allocations = allocations;
+        this.deallocations = deallocations;
+        this.failedAllocations = failedAllocations;
+        this.skippedEvents = skippedEvents;
+        this.firstFailureEvent = firstFailureEvent;
+        this.firstFailureSize = firstFailureSize;
+        this.peakMemoryUsage = peakMemoryUsage;
+        this.elapsedNanos = elapsedNanos;
+        this.timeline = timeline;
+    }
+
+    public long getEventCount() { return eventCount; }
+    public long getAllocations() { return allocations; }
+    public long getDeallocations() { return deallocations; }
+    public long getFailedAllocations() { return failedAllocations; }
+    // Events that had nothing to replay: recorded failures and frees of unknown addresses
+    public long getSkippedEvents() { return skippedEvents; }
+    // Index of the first event the target allocator could not serve, -1 if none failed
+    public long getFirstFailureEvent() { return firstFailureEvent; }
+    public int getFirstFailureSize() { return firstFailureSize; }
+    public int getPeakMemoryUsage() { return peakMemoryUsage; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public List<Sample> getTimeline() { return timeline; }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0.0 : eventCount / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Replayed %d events (%d allocations, %d deallocations) in %.1f ms, %.0f ops/s%n"
+                        + "Failed allocations: %d (first at event %d, size %d), skipped events: %d%n"
+                        + "Peak memory usage: %d, timeline samples: %d",
+                eventCount, allocations, deallocations, elapsedNanos / 1e6, getThroughput(),
+                failedAllocations, firstFailureEvent, firstFailureSize, skippedEvents,
+                peakMemoryUsage, timeline.size());
+    }
+
+    // Allocator state after a given number of replayed events
+    public static class Sample {
+        private final long eventIndex;
+        private final int totalAllocated;
+        private final int freeMemory;
+        private final int fragmentationCount;
+
+        public Sample(long eventIndex, int totalAllocated, int freeMemory, int fragmentationCount) {
+            this.eventIndex = eventIndex;
+            this.totalAllocated = totalAllocated;
+            this.freeMemory = freeMemory;
+            this.fragmentationCount = fragmentationCount;
+        }
+
+        public long getEventIndex() { return eventIndex; }
+        public int getTotalAllocated() { return totalAllocated; }
+        public int getFreeMemory() { return freeMemory; }
+        public int getFragmentationCount() { return fragmentationCount; }
+    }
+}
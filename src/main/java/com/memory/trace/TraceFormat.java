@@ -0,0 +1,21 @@
+package com.memory.trace;
+
+// Binary trace layout. A trace starts with MAGIC and VERSION, followed by records that each begin
+// with a one-byte type. All numbers after the type are unsigned LEB128 varints:
+//   ALLOCATE:       timestamp delta (ns), requested size, process index, address + 1 (0 = failed)
+//   DEALLOCATE:     timestamp delta (ns), address, 1 if the block was allocated else 0
+//   DEFINE_PROCESS: process index, UTF-8 length, UTF-8 bytes; written before the index is first used
+final class TraceFormat {
+    static final int MAGIC = 0x42545243; // "BTRC"
+    static final int VERSION = 1;
+
+    static final int ALLOCATE = 1;
+    static final int DEALLOCATE = 2;
+    static final int DEFINE_PROCESS = 3;
+
+    // Process index used when an allocation has no process id
+    static final int NO_PROCESS = 0;
+
+    private TraceFormat() {
+    }
+}
@@ -0,0 +1,139 @@
+package com.memory.trace;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streams a trace one record at a time. The current record is exposed through the getters and is
+// overwritten by the next call to next(), so reading allocates nothing per record.
+public class TraceReader implements Closeable {
+    public enum EventType { ALLOCATE, DEALLOCATE }
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final InputStream in;
+    private final List<String> processIds;
+    private EventType type;
+    private long timestampNanos;
+    private int size;
+    private String processId;
+    private int address;
+    private boolean success;
+
+    public TraceReader(InputStream in) throws IOException {
+        this.in = new BufferedInputStream(in, BUFFER_SIZE);
+        this.processIds = new ArrayList<>();
+        processIds.add(null);
+        if (readInt() != TraceFormat.MAGIC) {
+            throw new IOException("Not an allocation trace");
+        }
+        int version = this.in.read();
+        if (version != TraceFormat.VERSION) {
+            throw new IOException("Unsupported trace version " + version);
+        }
+    }
+
+    public TraceReader(Path path) throws IOException {
+        this(Files.newInputStream(path));
+    }
+
+    // Advances to the next allocate or deallocate record; returns false at the end of the trace
+    public boolean next() throws IOException {
+        while (true) {
+            int recordType = in.read();
+            switch (recordType) {
+                case -1:
+                    return false;
+                case TraceFormat.ALLOCATE:
+                    type = EventType.ALLOCATE;
+                    timestampNanos += readVarLong();
+                    size = (int) readVarLong();
+                    long processIndex = readVarLong();
+                    if (processIndex < 0 || processIndex >= processIds.size()) {
+                        throw new IOException("Corrupt trace: undefined process index " + processIndex);
+                    }
+                    processId = processIds.get((int) processIndex);
+                    long encodedAddress = readVarLong();
+                    success = encodedAddress != 0;
+                    address = (int) (encodedAddress - 1);
+                    return true;
+                case TraceFormat.DEALLOCATE:
+                    type = EventType.DEALLOCATE;
+                    timestampNanos += readVarLong();
+                    size = 0;
+                    processId = null;
+                    address = (int) readVarLong();
+                    success = readByte() == 1;
+                    return true;
+                case TraceFormat.DEFINE_PROCESS:
+                    // Indexes are defined in order, starting after NO_PROCESS
+                    long index = readVarLong();
+                    if (index != processIds.size()) {
+                        throw new IOException("Corrupt trace: process index " + index + " defined out of order");
+                    }
+                    long length = readVarLong();
+                    if (length < 0 || length > Integer.MAX_VALUE) {
+                        throw new IOException("Corrupt trace: process id of " + length + " bytes");
+                    }
+                    byte[] bytes = new byte[(int) length];
+                    readFully(bytes);
+                    processIds.add(new String(bytes, StandardCharsets.UTF_8));
+                    break;
+                default:
+                    throw new IOException("Corrupt trace: unknown record type " + recordType);
+            }
+        }
+    }
+
+    public EventType getType() { return type; }
+    // Nanoseconds since the recorder was created
+    public long getTimestampNanos() { return timestampNanos; }
+    public int getSize() { return size; }
+    public String getProcessId() { return processId; }
+    // Address the recorded allocator returned or freed; -1 for a failed allocation
+    public int getAddress() { return address; }
+    public boolean isSuccess() { return success; }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt trace: varint too long");
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Truncated trace record");
+        }
+        return b;
+    }
+
+    private int readInt() throws IOException {
+        return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+
+    private void readFully(byte[] bytes) throws IOException {
+        int read = 0;
+        while (read < bytes.length) {
+            int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new EOFException("Truncated trace record");
+            }
+            read += n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,99 @@
+package com.memory.trace;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+// Appends allocator operations to a compact binary trace (see TraceFormat). Writes go through a
+// large buffer, and process ids are written once and referenced by index afterwards.
+public class TraceRecorder implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final Map<String, Integer> processIndexes;
+    private long lastTimestamp;
+    private long recordCount;
+
+    public TraceRecorder(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        this.processIndexes = new HashMap<>();
+        this.lastTimestamp = System.nanoTime();
+        writeInt(TraceFormat.MAGIC);
+        this.out.write(TraceFormat.VERSION);
+    }
+
+    public TraceRecorder(Path path) throws IOException {
+        this(Files.newOutputStream(path));
+    }
+
+    public synchronized void recordAllocate(int size, String processId, Integer address) throws IOException {
+        int processIndex = processIndex(processId);
+        out.write(TraceFormat.ALLOCATE);
+        writeVarLong(timestampDelta());
+        writeVarLong(size);
+        writeVarLong(processIndex);
+        writeVarLong(address == null ? 0 : address + 1L);
+        recordCount++;
+    }
+
+    public synchronized void recordDeallocate(int address, boolean success) throws IOException {
+        out.write(TraceFormat.DEALLOCATE);
+        writeVarLong(timestampDelta());
+        writeVarLong(address);
+        out.write(success ? 1 : 0);
+        recordCount++;
+    }
+
+    public synchronized long getRecordCount() { return recordCount; }
+
+    private int processIndex(String processId) throws IOException {
+        if (processId == null) {
+            return TraceFormat.NO_PROCESS;
+        }
+        Integer index = processIndexes.get(processId);
+        if (index == null) {
+            index = processIndexes.size() + 1;
+            processIndexes.put(processId, index);
+            byte[] bytes = processId.getBytes(StandardCharsets.UTF_8);
+            out.write(TraceFormat.DEFINE_PROCESS);
+            writeVarLong(index);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+        return index;
+    }
+
+    private long timestampDelta() {
+        long now = System.nanoTime();
+        long delta = Math.max(0, now - lastTimestamp);
+        lastTimestamp = now;
+        return delta;
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
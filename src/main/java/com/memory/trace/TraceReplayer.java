@@ -0,0 +1,119 @@
+package com.memory.trace;
+
+import com.memory.model.BuddySystem;
+import com.memory.model.MemoryAllocator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Streams a recorded trace through an allocator. Only the live set (recorded address -> replayed
+// address) and a bounded fragmentation timeline are kept in memory, never the trace itself.
+public class TraceReplayer {
+    private final int maxTimelineSamples;
+    private final long initialSampleInterval;
+
+    public TraceReplayer(int maxTimelineSamples, long initialSampleInterval) {
+        if (maxTimelineSamples < 2 || initialSampleInterval <= 0) {
+            throw new IllegalArgumentException("Need at least 2 samples and a positive interval");
+        }
+        this.maxTimelineSamples = maxTimelineSamples;
+        this.initialSampleInterval = initialSampleInterval;
+    }
+
+    public TraceReplayer() {
+        this(1024, 1000);
+    }
+
+    public ReplayReport replay(Path trace, MemoryAllocator target) throws IOException {
+        try (TraceReader reader = new TraceReader(trace)) {
+            return replay(reader, target);
+        }
+    }
+
+    public ReplayReport replay(TraceReader reader, MemoryAllocator target) throws IOException {
+        Map<Integer, Integer> liveAddresses = new HashMap<>();
+        List<ReplayReport.Sample> timeline = new ArrayList<>();
+        long events = 0;
+        long allocations = 0;
+        long deallocations = 0;
+        long failures = 0;
+        long skipped = 0;
+        long firstFailureEvent = -1;
+        int firstFailureSize = 0;
+        int peak = target.getTotalAllocated();
+        long sampleInterval = initialSampleInterval;
+
+        long start = System.nanoTime();
+        while (reader.next()) {
+            if (reader.getType() == TraceReader.EventType.ALLOCATE) {
+                if (!reader.isSuccess()) {
+                    skipped++;
+                } else {
+                    Integer address = target.allocate(reader.getSize(), reader.getProcessId());
+                    allocations++;
+                    if (address == null) {
+                        failures++;
+                        if (firstFailureEvent < 0) {
+                            firstFailureEvent = events;
+                            firstFailureSize = reader.getSize();
+                        }
+                    } else {
+                        liveAddresses.put(reader.getAddress(), address);
+                        peak = Math.max(peak, target.getTotalAllocated());
+                    }
+                }
+            } else {
+                Integer address = liveAddresses.remove(reader.getAddress());
+                if (address == null) {
+                    skipped++;
+                } else {
+                    target.deallocate(address);
+                    deallocations++;
+                }
+            }
+
+            events++;
+            if (events % sampleInterval == 0 && addSample(timeline, events, target)) {
+                sampleInterval *= 2;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        addSample(timeline, events, target);
+
+        return new ReplayReport(events, allocations, deallocations, failures, skipped,
+                firstFailureEvent, firstFailureSize, peak, elapsed, timeline);
+    }
+
+    // When the timeline is full, drops every other sample and returns true so the caller halves
+    // its sampling rate
+    private boolean addSample(List<ReplayReport.Sample> timeline, long events, MemoryAllocator target) {
+        boolean compacted = false;
+        if (timeline.size() >= maxTimelineSamples) {
+            List<ReplayReport.Sample> kept = new ArrayList<>(maxTimelineSamples);
+            for (int i = 1; i < timeline.size(); i += 2) {
+                kept.add(timeline.get(i));
+            }
+            timeline.clear();
+            timeline.addAll(kept);
+            compacted = true;
+        }
+        timeline.add(new ReplayReport.Sample(events, target.getTotalAllocated(),
+                target.getFreeMemory(), target.getFragmentationCount()));
+        return compacted;
+    }
+
+    // Usage: TraceReplayer <trace file> <arena size>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: TraceReplayer <trace file> <arena size>");
+            System.exit(1);
+        }
+        ReplayReport report = new TraceReplayer().replay(Paths.get(args[0]), new BuddySystem(Integer.parseInt(args[1])));
+        System.out.println(report);
+    }
+}
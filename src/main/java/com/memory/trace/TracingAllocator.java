@@ -0,0 +1,65 @@
+package com.memory.trace;
+
+import com.memory.model.MemoryAllocator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// Records every allocate and deallocate passing through to the wrapped allocator. Each call and
+// its record happen under the wrapped allocator's lock, the one other users of an allocator
+// synchronize on, so the trace has the order in which the operations took effect. That holds only
+// while every other user of the allocator also synchronizes on it; operations of a concurrent
+// allocator are serialized while they go through the tracer.
+public class TracingAllocator implements MemoryAllocator {
+    private final MemoryAllocator delegate;
+    private final TraceRecorder recorder;
+
+    public TracingAllocator(MemoryAllocator delegate, TraceRecorder recorder) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Integer allocate(int size, String processId) {
+        synchronized (delegate) {
+            Integer address = delegate.allocate(size, processId);
+            try {
+                recorder.recordAllocate(size, processId, address);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write allocation trace", e);
+            }
+            return address;
+        }
+    }
+
+    @Override
+    public boolean deallocate(int address) {
+        synchronized (delegate) {
+            boolean success = delegate.deallocate(address);
+            try {
+                recorder.recordDeallocate(address, success);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write allocation trace", e);
+            }
+            return success;
+        }
+    }
+
+    @Override
+    public String getOwner(int address) {
+        synchronized (delegate) {
+            return delegate.getOwner(address);
+        }
+    }
+
+    public MemoryAllocator getDelegate() { return delegate; }
+    public TraceRecorder getRecorder() { return recorder; }
+
+    // Getters for statistics
+    public int getTotalSize() { return delegate.getTotalSize(); }
+    public int getTotalAllocated() { return delegate.getTotalAllocated(); }
+    public int getFreeMemory() { return delegate.getFreeMemory(); }
+    public int getPeakMemoryUsage() { return delegate.getPeakMemoryUsage(); }
+    public int getAllocationCount() { return delegate.getAllocationCount(); }
+    public int getFragmentationCount() { return delegate.getFragmentationCount(); }
+}
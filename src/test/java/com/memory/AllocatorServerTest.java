@@ -0,0 +1,146 @@
+package com.memory;
+
+import com.memory.model.BuddySystem;
+import com.memory.server.AllocatorClient;
+import com.memory.server.AllocatorServer;
+import com.memory.server.LoadGenerator;
+import com.memory.server.LoadReport;
+import com.memory.server.ServerStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class AllocatorServerTest {
+    private static final int TOTAL_MEMORY = 1024;
+
+    private BuddySystem buddySystem;
+    private AllocatorServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        buddySystem = new BuddySystem(TOTAL_MEMORY);
+        server = new AllocatorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), buddySystem);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testRoundTrips() throws IOException {
+        try (AllocatorClient client = new AllocatorClient(server.getLocalAddress())) {
+            assertEquals(Integer.valueOf(0), client.allocate(256, "P1"));
+            assertEquals(Integer.valueOf(256), client.allocate(100, "P2"));
+            assertNull(client.allocate(2 * TOTAL_MEMORY, "P1"));
+            assertEquals(1, buddySystem.getBlocksByProcess("P2").size());
+
+            ServerStats stats = client.getStats();
+            assertEquals(TOTAL_MEMORY, stats.getTotalSize());
+            assertEquals(384, stats.getTotalAllocated());
+            assertEquals(2, stats.getAllocationCount());
+
+            // The failed request left the connection on P1
+            assertTrue(client.deallocate(0));
+            assertFalse(client.deallocate(0));
+            assertEquals(128, client.getTotalAllocated());
+        }
+    }
+
+    @Test
+    public void testPipelinedAndBatchedRequests() throws IOException {
+        try (AllocatorClient client = new AllocatorClient(server.getLocalAddress())) {
+            client.sendSetProcess("P1");
+            for (int i = 0; i < 130; i++) {
+                client.sendAllocate(8);
+            }
+            client.sendStats();
+            client.flush();
+            assertEquals(132, client.getPendingCount());
+
+            assertTrue(client.receiveStatus());
+            Set<Integer> addresses = new HashSet<>();
+            for (int i = 0; i < 128; i++) {
+                int address = client.receiveAllocate();
+                assertTrue(address >= 0);
+                assertTrue(addresses.add(address));
+            }
+            assertEquals(-1, client.receiveAllocate());
+            assertEquals(-1, client.receiveAllocate());
+            assertEquals(TOTAL_MEMORY, client.receiveStats().getTotalAllocated());
+            assertEquals(0, client.getPendingCount());
+
+            int[] live = addresses.stream().mapToInt(Integer::intValue).toArray();
+            assertEquals(128, client.deallocateBatch(live));
+            int[] batch = new int[4];
+            assertEquals(4, client.allocateBatch(new int[]{256, 256, 256, 256}, "P2", batch));
+            assertEquals(4, buddySystem.getProcessBlockCount("P2"));
+            assertEquals(4, client.deallocateBatch(batch));
+        }
+        assertEquals(0, buddySystem.getTotalAllocated());
+        assertTrue(server.getBatchCount() < server.getRequestCount());
+    }
+
+    @Test
+    public void testClientCannotFreeAnotherProcessesBlock() throws IOException {
+        try (AllocatorClient a = new AllocatorClient(server.getLocalAddress());
+             AllocatorClient b = new AllocatorClient(server.getLocalAddress())) {
+            Integer address = a.allocate(64, "A");
+            assertNotNull(address);
+            assertNotNull(b.allocate(64, "B"));
+
+            assertFalse(b.deallocate(address));
+            assertEquals(0, b.deallocateBatch(new int[]{address}));
+            assertEquals("A", buddySystem.getOwner(address));
+            assertEquals(128, buddySystem.getTotalAllocated());
+
+            assertTrue(a.deallocate(address));
+            assertEquals(64, buddySystem.getTotalAllocated());
+        }
+    }
+
+    // 5000 STATS responses take about twice the server's 64 KB output buffer
+    @Test(timeout = 10000)
+    public void testPipelineLargerThanOutputBuffer() throws IOException {
+        try (AllocatorClient client = new AllocatorClient(server.getLocalAddress())) {
+            for (int i = 0; i < 5000; i++) {
+                client.sendStats();
+            }
+            client.flush();
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(TOTAL_MEMORY, client.receiveStats().getTotalSize());
+            }
+            assertEquals(0, client.getPendingCount());
+        }
+    }
+
+    @Test
+    public void testLoadGeneratorOverUnixSocket() throws Exception {
+        Path socket = Files.createTempDirectory("allocator").resolve("allocator.sock");
+        BuddySystem shared = new BuddySystem(1 << 20);
+        try (AllocatorServer unixServer = new AllocatorServer(UnixDomainSocketAddress.of(socket), shared)) {
+            unixServer.start();
+            LoadReport report = new LoadGenerator(unixServer.getLocalAddress(), 2, 16, 16, 4096, 64)
+                    .run(200_000_000L);
+            assertTrue(report.getOperations() > 0);
+            assertEquals(report.getOperations(), report.getAllocations() + report.getDeallocations());
+            assertTrue(report.getLatencyPercentile(50) <= report.getLatencyPercentile(99.9));
+            assertTrue(report.getThroughput() > 0);
+        }
+        assertEquals(0, shared.getTotalAllocated());
+        assertFalse(Files.exists(socket));
+        Files.delete(socket.getParent());
+    }
+}
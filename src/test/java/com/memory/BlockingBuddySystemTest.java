@@ -0,0 +1,128 @@
+package com.memory;
+
+import com.memory.model.BlockingBuddySystem;
+import com.memory.model.BlockingBuddySystem.WaiterPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BlockingBuddySystemTest {
+    private static final int TOTAL_MEMORY = 1024;
+
+    @Test
+    public void testWaiterIsServedByDeallocate() {
+        BlockingBuddySystem allocator = new BlockingBuddySystem(TOTAL_MEMORY);
+        Integer full = allocator.allocate(TOTAL_MEMORY, "P1");
+        CompletableFuture<Integer> pending = allocator.allocateAsync(256, "P2");
+        assertFalse(pending.isDone());
+        assertEquals(1, allocator.getWaiterCount());
+
+        assertTrue(allocator.deallocate(full));
+        assertEquals(0, (int) pending.join());
+        assertEquals(0, allocator.getWaiterCount());
+        assertEquals(1, allocator.getServedWaiterCount());
+        assertNull(allocator.allocateAsync(2 * TOTAL_MEMORY, "P3").join());
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        BlockingBuddySystem allocator = new BlockingBuddySystem(TOTAL_MEMORY);
+        allocator.allocate(TOTAL_MEMORY, "P1");
+        assertNull(allocator.allocate(64, "P2", 20, TimeUnit.MILLISECONDS));
+        assertEquals(0, allocator.getWaiterCount());
+        assertEquals(1, allocator.getTimedOutWaiterCount());
+    }
+
+    @Test
+    public void testFifoDoesNotLetSmallRequestsOvertake() {
+        BlockingBuddySystem allocator = new BlockingBuddySystem(TOTAL_MEMORY, WaiterPolicy.FIFO);
+        Integer half = allocator.allocate(512, "P1");
+        Integer quarter = allocator.allocate(256, "P1");
+        allocator.allocate(256, "P1");
+        CompletableFuture<Integer> large = allocator.allocateAsync(512, "P2");
+        CompletableFuture<Integer> small = allocator.allocateAsync(128, "P3");
+        assertFalse(small.isDone());
+
+        allocator.deallocate(quarter);
+        assertFalse(large.isDone());
+        assertFalse(small.isDone());
+        allocator.deallocate(half);
+        assertTrue(large.isDone());
+        assertTrue(small.isDone());
+    }
+
+    @Test
+    public void testFifoAllocateFailsWhileRequestsAreQueued() {
+        BlockingBuddySystem allocator = new BlockingBuddySystem(TOTAL_MEMORY, WaiterPolicy.FIFO);
+        allocator.allocate(512, "P1");
+        CompletableFuture<Integer> large = allocator.allocateAsync(1024, "P2");
+        assertNull(allocator.allocate(64, "P3"));
+
+        large.cancel(false);
+        assertNotNull(allocator.allocate(64, "P3"));
+    }
+
+    @Test
+    public void testCancelledWaiterLeavesTheQueue() {
+        BlockingBuddySystem allocator = new BlockingBuddySystem(TOTAL_MEMORY, WaiterPolicy.FIFO);
+        allocator.allocate(512, "P1");
+        CompletableFuture<Integer> large = allocator.allocateAsync(1024, "P2");
+        CompletableFuture<Integer> small = allocator.allocateAsync(256, "P3");
+        assertEquals(2, allocator.getWaiterCount());
+
+        // The request behind the cancelled one fits and no longer has to wait
+        assertTrue(large.cancel(false));
+        assertEquals(0, allocator.getWaiterCount());
+        assertEquals(512, (int) small.join());
+    }
+
+    @Test
+    public void testBestFitServesLargestFittingRequestFirst() {
+        BlockingBuddySystem allocator = new BlockingBuddySystem(TOTAL_MEMORY, WaiterPolicy.BEST_FIT);
+        Integer half = allocator.allocate(512, "P1");
+        allocator.allocate(512, "P1");
+        CompletableFuture<Integer> small = allocator.allocateAsync(256, "P2");
+        CompletableFuture<Integer> large = allocator.allocateAsync(512, "P3");
+        CompletableFuture<Integer> tooLarge = allocator.allocateAsync(1024, "P4");
+
+        allocator.deallocate(half);
+        assertTrue(large.isDone());
+        assertFalse(small.isDone());
+        assertFalse(tooLarge.isDone());
+        assertEquals(2, allocator.getWaiterCount());
+    }
+
+    @Test
+    public void testThousandsOfVirtualThreadWaiters() throws Exception {
+        BlockingBuddySystem allocator = new BlockingBuddySystem(TOTAL_MEMORY);
+        int threads = 2000;
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threads; i++) {
+                String owner = "V" + i;
+                results.add(executor.submit(() -> {
+                    Integer address = allocator.allocate(256, owner, 30, TimeUnit.SECONDS);
+                    if (address != null) {
+                        Thread.sleep(1);
+                        allocator.deallocate(address);
+                    }
+                    return address;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertNotNull(result.get());
+            }
+        }
+        assertEquals(0, allocator.getTotalAllocated());
+        assertEquals(0, allocator.getWaiterCount());
+        assertEquals(threads, allocator.getAllocationCount());
+    }
+}
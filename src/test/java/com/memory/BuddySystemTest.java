@@ -1,9 +1,23 @@
 package com.memory;
 
+import com.memory.metrics.AllocatorMetrics;
+import com.memory.metrics.FailureReason;
+import com.memory.model.AllocationListener;
+import com.memory.model.BlockSnapshot;
 import com.memory.model.BuddySystem;
+import com.memory.model.MemoryBlock;
+import com.memory.model.WarmupProfile;
+import com.memory.model.WarmupReport;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class BuddySystemTest {
@@ -92,4 +106,515 @@ public class BuddySystemTest {
         buddySystem.allocate(128, "P2");
         assertEquals(initialCount + 2, buddySystem.getAllocationCount());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFullCoalescing() {
+        int[] addresses = new int[TOTAL_MEMORY];
+        for (int i = 0; i < TOTAL_MEMORY; i++) {
+            addresses[i] = buddySystem.allocate(1, "P" + i);
+        }
+        assertNull(buddySystem.allocate(1, "P"));
+
+        // Free in an interleaved order so buddies are released far apart
+        for (int i = 0; i < TOTAL_MEMORY; i += 2) {
+            assertTrue(buddySystem.deallocate(addresses[i]));
+        }
+        for (int i = 1; i < TOTAL_MEMORY; i += 2) {
+            assertTrue(buddySystem.deallocate(addresses[i]));
+        }
+
+        assertEquals(1, buddySystem.getAllBlocks().size());
+        assertEquals(Integer.valueOf(0), buddySystem.allocate(TOTAL_MEMORY, "P"));
+    }
+
+    @Test
+    public void testBatchAllocation() {
+        int[] sizes = {256, 128, 512, 256};
+        int[] addresses = new int[sizes.length];
+        assertEquals(3, buddySystem.allocateBatch(sizes, "P1", addresses));
+        assertEquals(-1, addresses[3]);
+        assertEquals(896, buddySystem.getTotalAllocated());
+        assertEquals(3, buddySystem.getAllocationCount());
+
+        assertEquals(3, buddySystem.deallocateBatch(new int[]{addresses[0], addresses[1], addresses[2], 12345}));
+        assertEquals(0, buddySystem.getTotalAllocated());
+        assertEquals(1, buddySystem.getFragmentationCount());
+    }
+
+    @Test
+    public void testBatchWithInvalidSizeAllocatesNothing() {
+        int[] addresses = new int[3];
+        try {
+            buddySystem.allocateBatch(new int[]{64, 0, 64}, "P1", addresses);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, buddySystem.getTotalAllocated());
+        assertEquals(0, buddySystem.getProcessBlockCount("P1"));
+        assertEquals(1, buddySystem.getAllBlocks().size());
+    }
+
+    @Test
+    public void testFragmentationStatistics() {
+        assertEquals(1, buddySystem.getFragmentationCount());
+        assertEquals(TOTAL_MEMORY, buddySystem.getLargestFreeBlock());
+
+        Integer addr1 = buddySystem.allocate(200, "P1");
+        Integer addr2 = buddySystem.allocate(256, "P2");
+        // 1024 splits into free blocks of 512 and 256
+        int[] histogram = buddySystem.getFreeBlockHistogram();
+        assertEquals(1, histogram[9]);
+        assertEquals(0, histogram[8]);
+        assertEquals(1, buddySystem.getFragmentationCount());
+        assertEquals(512, buddySystem.getLargestFreeBlock());
+        assertEquals(56.0 / 512, buddySystem.getInternalFragmentation(), 1e-9);
+        assertEquals(0.0, buddySystem.getExternalFragmentation(), 1e-9);
+
+        Integer addr3 = buddySystem.allocate(256, "P3");
+        assertTrue(buddySystem.deallocate(addr1));
+        assertEquals(2, buddySystem.getFragmentationCount());
+        assertEquals(0.5, buddySystem.getExternalFragmentation(), 1e-9);
+
+        assertTrue(buddySystem.deallocate(addr2));
+        assertTrue(buddySystem.deallocate(addr3));
+        assertEquals(0, buddySystem.getRequestedMemory());
+        assertEquals(1, buddySystem.getFragmentationCount());
+    }
+
+    @Test
+    public void testMetricsDisabledByDefault() {
+        buddySystem.allocate(64, "P1");
+        assertNull(buddySystem.allocate(TOTAL_MEMORY * 2, "P2"));
+        assertEquals(1, buddySystem.getFailedAllocationCount());
+        assertEquals(0, buddySystem.getMetrics().getAllocationLatency().getCount());
+        assertEquals(0, buddySystem.getMetrics().getFailedAllocations());
+    }
+
+    @Test
+    public void testMetricsRecordSplitsMergesAndFailures() {
+        AllocatorMetrics metrics = buddySystem.getMetrics();
+        metrics.setEnabled(true);
+
+        Integer address = buddySystem.allocate(256, "P1");
+        assertEquals(1, metrics.getSplitCount(10));
+        assertEquals(1, metrics.getSplitCount(9));
+        assertEquals(0, metrics.getSplitCount(8));
+
+        Integer big = buddySystem.allocate(512, "P2");
+        assertNull(buddySystem.allocate(512, "P3"));
+        assertEquals(FailureReason.OUT_OF_MEMORY, metrics.getLastFailureReason());
+        assertNull(buddySystem.allocate(4096, "P4"));
+        assertEquals(FailureReason.TOO_LARGE, metrics.getLastFailureReason());
+        assertEquals(4096, metrics.getLastFailedSize());
+        assertEquals(2, metrics.getFailedAllocations());
+        assertEquals(2, metrics.getSuccessfulAllocations());
+
+        buddySystem.deallocate(address);
+        buddySystem.deallocate(big);
+        assertEquals(1, metrics.getMergeCount(8));
+        assertEquals(1, metrics.getMergeCount(9));
+        assertEquals(2, metrics.getAllocationLatency().getCount());
+        assertEquals(2, metrics.getDeallocationLatency().getCount());
+        assertTrue(metrics.getAllocationLatency().getPercentile(99) > 0);
+    }
+
+    @Test
+    public void testMetricsCountEveryAllocationPath() {
+        AllocatorMetrics metrics = buddySystem.getMetrics();
+        metrics.setEnabled(true);
+
+        int[] addresses = new int[2];
+        assertEquals(2, buddySystem.allocateBatch(new int[]{64, 100}, "P1", addresses));
+        assertNotNull(buddySystem.allocateAligned(32, 256, "P1"));
+        assertNotNull(buddySystem.reallocate(addresses[0], 200));
+        assertEquals(1, metrics.getAllocationCount(5));
+        assertEquals(1, metrics.getAllocationCount(6));
+        assertEquals(1, metrics.getAllocationCount(7));
+        assertEquals(1, metrics.getAllocationCount(8));
+        assertEquals(4, metrics.getSuccessfulAllocations());
+        assertEquals(4, metrics.getAllocationLatency().getCount());
+
+        assertEquals(1, buddySystem.deallocateBatch(new int[]{addresses[1]}));
+        assertEquals(2, buddySystem.freeAll("P1"));
+        assertEquals(3, metrics.getDeallocationLatency().getCount());
+    }
+
+    @Test
+    public void testOwnerIndexAndFreeAll() {
+        Integer a1 = buddySystem.allocate(100, "P1");
+        Integer a2 = buddySystem.allocate(64, "P1");
+        Integer b1 = buddySystem.allocate(200, "P2");
+        assertEquals(2, buddySystem.getAllocatedBlocksByProcess().get("P1").size());
+        assertEquals(128 + 64, buddySystem.getProcessUsage("P1"));
+        assertEquals(2, buddySystem.getBlocksByProcess("P1").size());
+
+        assertEquals(2, buddySystem.freeAll("P1"));
+        assertFalse(buddySystem.deallocate(a1));
+        assertFalse(buddySystem.deallocate(a2));
+        assertEquals(0, buddySystem.getProcessUsage("P1"));
+        assertEquals(256, buddySystem.getTotalAllocated());
+        assertFalse(buddySystem.getAllocatedBlocksByProcess().containsKey("P1"));
+        assertEquals(0, buddySystem.freeAll("P1"));
+
+        assertTrue(buddySystem.deallocate(b1));
+        assertEquals(1, buddySystem.getFragmentationCount());
+        assertEquals(0, buddySystem.getRequestedMemory());
+    }
+
+    @Test
+    public void testOwnerQuota() {
+        buddySystem.getMetrics().setEnabled(true);
+        buddySystem.setQuota("P1", 256);
+        Integer a1 = buddySystem.allocate(200, "P1");
+        assertNotNull(a1);
+        assertNull(buddySystem.allocate(1, "P1"));
+        assertEquals(FailureReason.QUOTA_EXCEEDED, buddySystem.getMetrics().getLastFailureReason());
+        assertNotNull(buddySystem.allocate(1, "P2"));
+
+        assertTrue(buddySystem.deallocate(a1));
+        assertEquals(256, buddySystem.getQuota("P1"));
+        assertNotNull(buddySystem.allocate(128, "P1"));
+        assertNotNull(buddySystem.allocate(128, "P1"));
+        assertNull(buddySystem.allocate(128, "P1"));
+
+        buddySystem.setQuota("P1", -1);
+        assertNotNull(buddySystem.allocate(128, "P1"));
+        assertEquals(-1, buddySystem.getQuota("P1"));
+    }
+
+    @Test
+    public void testFindBlockContaining() {
+        Integer a1 = buddySystem.allocate(100, "P1");
+        Integer a2 = buddySystem.allocate(300, "P2");
+        assertEquals((int) a1, buddySystem.findBlockContaining(a1 + 127).getStartAddress());
+        assertEquals(512, buddySystem.findBlockContaining(a2 + 1).getSize());
+
+        // Walking start + size visits the same blocks as the sorted copy
+        int address = 0;
+        int count = 0;
+        while (address < TOTAL_MEMORY) {
+            MemoryBlock block = buddySystem.findBlockContaining(address);
+            assertEquals(buddySystem.getAllBlocks().get(count).getStartAddress(), block.getStartAddress());
+            address += block.getSize();
+            count++;
+        }
+        assertEquals(buddySystem.getAllBlocks().size(), count);
+        assertNull(buddySystem.findBlockContaining(TOTAL_MEMORY));
+    }
+
+    @Test
+    public void testAllocationListener() {
+        List<String> events = new ArrayList<>();
+        AllocationListener listener = new AllocationListener() {
+            @Override
+            public void blockAllocated(int address, int size, String processId) {
+                events.add("+" + address + ":" + size + ":" + processId);
+            }
+
+            @Override
+            public void blockFreed(int address, int size, String processId) {
+                events.add("-" + address + ":" + size + ":" + processId);
+            }
+        };
+        buddySystem.addAllocationListener(listener);
+
+        Integer a1 = buddySystem.allocate(100, "P1");
+        Integer a2 = buddySystem.allocate(64, "P2");
+        buddySystem.deallocate(a1);
+        buddySystem.freeAll("P2");
+        assertEquals(Arrays.asList("+" + a1 + ":128:P1", "+" + a2 + ":64:P2",
+                "-" + a1 + ":128:P1", "-" + a2 + ":64:P2"), events);
+
+        buddySystem.removeAllocationListener(listener);
+        buddySystem.allocate(10, "P3");
+        assertEquals(4, events.size());
+    }
+
+    @Test
+    public void testReallocateInPlace() {
+        Integer address = buddySystem.allocate(100, "P1");
+        assertEquals(address, buddySystem.reallocate(address, 200));
+        assertEquals(256, buddySystem.getTotalAllocated());
+        assertEquals(256, buddySystem.getProcessUsage("P1"));
+        assertEquals(200, buddySystem.getRequestedMemory());
+
+        // Shrinking returns the upper halves to the free lists
+        assertEquals(address, buddySystem.reallocate(address, 30));
+        assertEquals(32, buddySystem.getTotalAllocated());
+        assertEquals(512, buddySystem.getLargestFreeBlock());
+
+        assertTrue(buddySystem.deallocate(address));
+        assertEquals(1, buddySystem.getFragmentationCount());
+        assertEquals(0, buddySystem.getRequestedMemory());
+    }
+
+    @Test
+    public void testReallocateMovesWhenBuddyIsTaken() {
+        Integer first = buddySystem.allocate(128, "P1");
+        Integer second = buddySystem.allocate(128, "P2");
+        Integer moved = buddySystem.reallocate(first, 256);
+        assertNotNull(moved);
+        assertNotEquals(first, moved);
+        assertFalse(buddySystem.deallocate(first));
+        assertEquals(256 + 128, buddySystem.getTotalAllocated());
+        assertEquals(1, buddySystem.getBlocksByProcess("P1").size());
+
+        // Too large to move anywhere: the old block stays allocated
+        assertNull(buddySystem.reallocate(second, 1024));
+        assertEquals(128, buddySystem.findBlockContaining(second).getSize());
+        assertNull(buddySystem.reallocate(first, 64));
+    }
+
+    @Test
+    public void testAllocateAligned() {
+        Integer small = buddySystem.allocate(16, "P1");
+        Integer aligned = buddySystem.allocateAligned(16, 256, "P2");
+        assertEquals(0, aligned % 256);
+        assertEquals(16, buddySystem.findBlockContaining(aligned).getSize());
+        assertEquals(32, buddySystem.getTotalAllocated());
+        assertTrue(buddySystem.deallocate(small));
+        assertTrue(buddySystem.deallocate(aligned));
+        assertEquals(1, buddySystem.getFragmentationCount());
+        assertNull(buddySystem.allocateAligned(16, 2048, "P3"));
+    }
+
+    @Test
+    public void testDeferredCoalescingAvoidsSplitMergeThrash() {
+        buddySystem.setDeferredCoalescing(4, 0.9);
+        buddySystem.getMetrics().setEnabled(true);
+        Integer first = buddySystem.allocate(64, "P1");
+        long splits = buddySystem.getMetrics().getSplitCount(7);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(buddySystem.deallocate(first));
+            assertEquals(1, buddySystem.getDeferredBlockCount(6));
+            first = buddySystem.allocate(64, "P1");
+        }
+        assertEquals(10, buddySystem.getAvoidedSplitMergePairs());
+        assertEquals(splits, buddySystem.getMetrics().getSplitCount(7));
+        assertEquals(0, buddySystem.getMetrics().getMergeCount(6));
+
+        // Nothing is left deferred once the mode is switched off
+        assertTrue(buddySystem.deallocate(first));
+        buddySystem.setDeferredCoalescing(0, 1.0);
+        assertEquals(0, buddySystem.getDeferredBlockCount());
+        assertEquals(1, buddySystem.getFragmentationCount());
+    }
+
+    @Test
+    public void testDeferredBlocksCoalesceWhenLargeRequestFails() {
+        buddySystem.setDeferredCoalescing(16, 1.0);
+        int[] addresses = new int[16];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = buddySystem.allocate(64, "P1");
+        }
+        assertEquals(16, buddySystem.deallocateBatch(addresses));
+        assertEquals(16, buddySystem.getDeferredBlockCount());
+        assertEquals(64, buddySystem.getLargestFreeBlock());
+
+        assertNotNull(buddySystem.allocate(1024, "P2"));
+        assertEquals(1, buddySystem.getCoalescePassCount());
+        assertEquals(0, buddySystem.getDeferredBlockCount());
+        assertEquals(0, buddySystem.getFragmentationCount());
+    }
+
+    @Test
+    public void testDeferredCoalescingRespectsThresholdAndWatermark() {
+        buddySystem.setDeferredCoalescing(1, 0.5);
+        Integer a1 = buddySystem.allocate(64, "P1");
+        Integer a2 = buddySystem.allocate(64, "P1");
+        Integer a3 = buddySystem.allocate(64, "P1");
+        buddySystem.deallocate(a1);
+        buddySystem.deallocate(a3);
+        assertEquals(1, buddySystem.getDeferredBlockCount(6));
+
+        // Crossing the watermark coalesces everything that was deferred
+        Integer big = buddySystem.allocate(512, "P2");
+        assertNotNull(big);
+        assertEquals(0, buddySystem.getDeferredBlockCount());
+        buddySystem.deallocate(a2);
+        buddySystem.deallocate(big);
+        assertEquals(2, buddySystem.getDeferredBlockCount());
+        buddySystem.coalesceDeferred();
+        assertEquals(0, buddySystem.getDeferredBlockCount());
+        assertEquals(1, buddySystem.getFragmentationCount());
+    }
+
+    @Test
+    public void testLazyBlockIteration() {
+        Integer a1 = buddySystem.allocate(64, "P1");
+        Integer a2 = buddySystem.allocate(200, "P2");
+        Integer a3 = buddySystem.allocate(32, "P3");
+
+        List<MemoryBlock> all = buddySystem.getAllBlocks();
+        for (int i = 1; i < all.size(); i++) {
+            assertEquals(all.get(i - 1).getStartAddress() + all.get(i - 1).getSize(), all.get(i).getStartAddress());
+        }
+
+        // A range starting inside a block includes that block
+        Iterator<MemoryBlock> range = buddySystem.blocks(a2 + 10, a2 + 256);
+        assertEquals((int) a2, range.next().getStartAddress());
+        assertFalse(range.hasNext());
+        assertEquals(2, buddySystem.streamBlocks(0, 128).filter(MemoryBlock::isAllocated).count());
+
+        Iterator<MemoryBlock> stale = buddySystem.blocks(0, TOTAL_MEMORY);
+        stale.next();
+        buddySystem.deallocate(a3);
+        try {
+            stale.next();
+            fail("Expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException expected) {
+            // The layout changed under the iterator
+        }
+        assertTrue(buddySystem.deallocate(a1));
+    }
+
+    @Test
+    public void testSnapshot() {
+        Integer a1 = buddySystem.allocate(64, "P1");
+        BlockSnapshot snapshot = buddySystem.snapshot();
+        assertSame(snapshot, buddySystem.snapshot());
+        assertEquals(buddySystem.getAllBlocks().size(), snapshot.size());
+        int index = snapshot.indexOf(a1 + 5);
+        assertEquals((int) a1, snapshot.getAddress(index));
+        assertTrue(snapshot.isAllocated(index));
+        assertEquals("P1", snapshot.getProcessId(index));
+
+        // The snapshot keeps the old layout after the allocator changes
+        buddySystem.deallocate(a1);
+        assertFalse(snapshot.isCurrent());
+        assertTrue(snapshot.isAllocated(index));
+        assertEquals(1, buddySystem.snapshot().size());
+        assertEquals(-1, snapshot.indexOf(TOTAL_MEMORY));
+    }
+
+    @Test
+    public void testSnapshotsAfterChangesMatchTheLayout() {
+        // 2^20 bytes give 1024 chunks of 1024 bytes, so blocks span several chunks or share one
+        BuddySystem large = new BuddySystem(1 << 20);
+        Random random = new Random(11);
+        List<Integer> live = new ArrayList<>();
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 20; i++) {
+                if (live.isEmpty() || random.nextInt(3) > 0) {
+                    Integer address = large.allocate(1 << random.nextInt(16), "P" + random.nextInt(3));
+                    if (address != null) {
+                        live.add(address);
+                    }
+                } else {
+                    assertTrue(large.deallocate(live.remove(random.nextInt(live.size()))));
+                }
+            }
+            if (random.nextBoolean() && !live.isEmpty()) {
+                Integer moved = large.reallocate(live.get(0), 1 << random.nextInt(16));
+                if (moved != null) {
+                    live.set(0, moved);
+                }
+            }
+
+            BlockSnapshot snapshot = large.snapshot();
+            List<MemoryBlock> blocks = large.getAllBlocks();
+            assertEquals(blocks.size(), snapshot.size());
+            for (int i = 0; i < blocks.size(); i++) {
+                MemoryBlock block = blocks.get(i);
+                assertEquals(block.getStartAddress(), snapshot.getAddress(i));
+                assertEquals(block.getSize(), snapshot.getSize(i));
+                assertEquals(block.isAllocated(), snapshot.isAllocated(i));
+                assertEquals(block.getProcessId(), snapshot.getProcessId(i));
+                assertEquals(i, snapshot.indexOf(block.getStartAddress() + block.getSize() - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testCanAllocate() {
+        assertTrue(buddySystem.canAllocate(TOTAL_MEMORY));
+        assertFalse(buddySystem.canAllocate(TOTAL_MEMORY + 1));
+        assertFalse(buddySystem.canAllocate(0));
+
+        Integer address = buddySystem.allocate(1, "P1");
+        assertFalse(buddySystem.canAllocate(1024));
+        assertTrue(buddySystem.canAllocate(512));
+        assertEquals(512, buddySystem.getLargestFreeBlock());
+
+        buddySystem.setQuota("P1", 64);
+        assertTrue(buddySystem.canAllocate(32, "P1"));
+        assertFalse(buddySystem.canAllocate(128, "P1"));
+        assertTrue(buddySystem.canAllocate(128, "P2"));
+
+        buddySystem.allocate(512, "P2");
+        buddySystem.allocate(256, "P2");
+        buddySystem.allocate(128, "P2");
+        assertFalse(buddySystem.canAllocate(128));
+        assertNull(buddySystem.allocate(128, "P3"));
+        assertTrue(buddySystem.deallocate(address));
+        assertTrue(buddySystem.canAllocate(128));
+    }
+
+    @Test
+    public void testWarmUpPreSplitsHotOrders() {
+        WarmupReport report = buddySystem.warmUp(WarmupProfile.parse("64:4,256:1"), 1.0);
+        assertEquals(4, report.getPreparedBlocks(6));
+        assertEquals(1, report.getPreparedBlocks(8));
+        assertEquals(5, report.getSplits());
+        assertEquals(4, buddySystem.getFreeBlockCount(6));
+
+        // The first allocations of the hot sizes need no split
+        AllocatorMetrics metrics = buddySystem.getMetrics();
+        metrics.setEnabled(true);
+        Integer[] small = new Integer[3];
+        for (int i = 0; i < small.length; i++) {
+            small[i] = buddySystem.allocate(50, "P1");
+        }
+        Integer large = buddySystem.allocate(200, "P1");
+        for (int order = 0; order <= 10; order++) {
+            assertEquals(0, metrics.getSplitCount(order));
+        }
+        report = buddySystem.getWarmupReport();
+        assertEquals(4, report.getHits());
+        assertEquals(1.0, report.getHitRate(), 1e-9);
+        assertEquals(1, report.getRemainingBlocks());
+
+        // Freed blocks stay split, and memory pressure still gets the whole arena back
+        for (Integer address : small) {
+            buddySystem.deallocate(address);
+        }
+        buddySystem.deallocate(large);
+        assertTrue(buddySystem.getFreeBlockCount(6) >= 4);
+        assertNotNull(buddySystem.allocate(TOTAL_MEMORY, "P2"));
+        report = buddySystem.getWarmupReport();
+        assertEquals(0, report.getRemainingBlocks());
+        assertEquals(1, report.getReclaimedBlocks());
+        assertEquals(0, report.getSplitAllocations());
+        assertEquals(5, report.getAllocations());
+    }
+
+    @Test
+    public void testWarmUpIsScaledToBudget() {
+        WarmupReport report = buddySystem.warmUp(WarmupProfile.parse("16:1000"), 0.5);
+        assertEquals(TOTAL_MEMORY / 2, report.getPreparedBytes());
+        assertEquals(32, buddySystem.getFreeBlockCount(4));
+        assertEquals(TOTAL_MEMORY / 2, buddySystem.getLargestFreeBlock());
+    }
+
+    @Test
+    public void testWarmupProfileSources() {
+        buddySystem.getMetrics().setEnabled(true);
+        buddySystem.allocate(64, "P1");
+        buddySystem.allocate(40, "P1");
+        Integer address = buddySystem.allocate(300, "P2");
+        buddySystem.deallocate(address);
+        buddySystem.allocate(300, "P2");
+
+        WarmupProfile live = WarmupProfile.capture(buddySystem);
+        assertEquals("64:2,512:1", live.toString());
+        assertEquals(live.toString(), WarmupProfile.parse(live.toString()).toString());
+        assertEquals("64:2,512:2", WarmupProfile.fromMetrics(buddySystem.getMetrics()).toString());
+        assertEquals("", WarmupProfile.parse(" ").toString());
+        try {
+            WarmupProfile.parse("64=2");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
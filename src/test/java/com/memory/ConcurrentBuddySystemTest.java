@@ -0,0 +1,185 @@
+package com.memory;
+
+import com.memory.model.ConcurrentBuddySystem;
+import com.memory.model.MemoryBlock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentBuddySystemTest {
+    private ConcurrentBuddySystem buddySystem;
+    private static final int TOTAL_MEMORY = 1 << 20;
+
+    @Before
+    public void setUp() {
+        buddySystem = new ConcurrentBuddySystem(TOTAL_MEMORY);
+    }
+
+    @Test
+    public void testSingleThreadedBehaviour() {
+        Integer addr1 = buddySystem.allocate(512, "P1");
+        Integer addr2 = buddySystem.allocate(256, "P2");
+        assertNotNull(addr1);
+        assertNotNull(addr2);
+        assertEquals(768, buddySystem.getTotalAllocated());
+        assertTrue(buddySystem.deallocate(addr1));
+        assertFalse(buddySystem.deallocate(addr1));
+        assertEquals(768, buddySystem.getPeakMemoryUsage());
+        assertEquals(2, buddySystem.getAllocationCount());
+    }
+
+    @Test
+    public void testConcurrentAllocationsDoNotOverlap() throws Exception {
+        int threads = 8;
+        runWorkload(threads, 20_000);
+
+        assertEquals(0, buddySystem.getTotalAllocated());
+        List<MemoryBlock> blocks = buddySystem.getAllBlocks();
+        assertEquals(1, blocks.size());
+        assertEquals(TOTAL_MEMORY, blocks.get(0).getSize());
+        assertEquals(1, buddySystem.getFragmentationCount());
+    }
+
+    @Test
+    public void testAdjacentBuddiesFreedConcurrently() throws Exception {
+        for (int round = 0; round < 1_000; round++) {
+            int left = buddySystem.allocate(TOTAL_MEMORY / 2, "L");
+            int right = buddySystem.allocate(TOTAL_MEMORY / 2, "R");
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            Thread other = new Thread(() -> {
+                await(barrier);
+                buddySystem.deallocate(right);
+            });
+            other.start();
+            await(barrier);
+            buddySystem.deallocate(left);
+            other.join();
+
+            assertEquals(1, buddySystem.getFragmentationCount());
+            assertNotNull(buddySystem.allocate(TOTAL_MEMORY, "ALL"));
+            assertTrue(buddySystem.deallocate(0));
+        }
+    }
+
+    // Each thread holds at most one half of the arena, so no allocation may fail, even while the
+    // other half is being split or merged
+    @Test
+    public void testNoFailureWhileMemoryIsInTransit() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<Integer>> failures = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            String processId = "T" + t;
+            failures.add(executor.submit(() -> {
+                int failed = 0;
+                for (int i = 0; i < 20_000; i++) {
+                    Integer address = buddySystem.allocate(i % 2 == 0 ? TOTAL_MEMORY / 2 : 64, processId);
+                    if (address == null) {
+                        failed++;
+                    } else {
+                        buddySystem.deallocate(address);
+                    }
+                }
+                return failed;
+            }));
+        }
+        for (Future<Integer> failed : failures) {
+            assertEquals(0, (int) failed.get());
+        }
+        executor.shutdown();
+    }
+
+    // One small block in each half leaves no half free, however much the other threads churn
+    @Test(timeout = 10000)
+    public void testImpossibleRequestFailsDuringChurn() throws Exception {
+        List<Integer> filler = new ArrayList<>();
+        Integer upper;
+        do {
+            upper = buddySystem.allocate(64, "HOLD");
+            filler.add(upper);
+        } while (upper < TOTAL_MEMORY / 2);
+        for (int i = 1; i < filler.size() - 1; i++) {
+            assertTrue(buddySystem.deallocate(filler.get(i)));
+        }
+
+        int threads = 3;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch started = new CountDownLatch(threads);
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String processId = "T" + t;
+            futures.add(executor.submit(() -> {
+                started.countDown();
+                while (!stop.get()) {
+                    Integer address = buddySystem.allocate(64 << (processId.hashCode() & 3), processId);
+                    if (address != null) {
+                        buddySystem.deallocate(address);
+                    }
+                }
+                return null;
+            }));
+        }
+        started.await();
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertNull(buddySystem.allocate(TOTAL_MEMORY / 2, "BIG"));
+                assertNull(buddySystem.allocate(TOTAL_MEMORY, "BIG"));
+            }
+        } finally {
+            stop.set(true);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+    }
+
+    // Each thread keeps a small working set of mixed-size blocks
+    private void runWorkload(int threads, int operationsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String processId = "T" + t;
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                ArrayDeque<Integer> live = new ArrayDeque<>();
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    if (live.size() < 16 && (live.isEmpty() || random.nextBoolean())) {
+                        Integer address = buddySystem.allocate(1 << (4 + random.nextInt(8)), processId);
+                        if (address != null) {
+                            live.add(address);
+                        }
+                    } else {
+                        assertTrue(buddySystem.deallocate(live.poll()));
+                    }
+                }
+                for (Integer address : live) {
+                    assertTrue(buddySystem.deallocate(address));
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.memory;
+
+import com.memory.model.LargeBuddySystem;
+import com.memory.model.LongMemoryBlock;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class LargeBuddySystemTest {
+    private static final long GIB = 1L << 30;
+    // Bytes the allocation counter may report for a churn that allocates nothing
+    private static final long ALLOCATION_SLACK = 256;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testArenaLargerThanIntRange() {
+        LargeBuddySystem buddySystem = new LargeBuddySystem(64 * GIB, 20);
+        Long addr1 = buddySystem.allocate(3 * GIB, "P1");
+        Long addr2 = buddySystem.allocate(20 * GIB, "P2");
+        assertNotNull(addr1);
+        assertNotNull(addr2);
+        assertEquals(4 * GIB + 32 * GIB, buddySystem.getTotalAllocated());
+        assertTrue(addr2 >= 32 * GIB);
+        assertEquals(0, buddySystem.getBlockSize(addr2 + 1));
+    }
+
+    @Test
+    public void testRequestsBelowMinimumOrderAreRoundedUp() {
+        LargeBuddySystem buddySystem = new LargeBuddySystem(1L << 20, 12);
+        Long address = buddySystem.allocate(1, "P1");
+        assertEquals(4096, buddySystem.getBlockSize(address));
+        assertNull(buddySystem.allocate((1L << 20) + 1, "P2"));
+    }
+
+    @Test
+    public void testDeallocationCoalesces() {
+        LargeBuddySystem buddySystem = new LargeBuddySystem(8 * GIB, 16);
+        Long[] addresses = new Long[64];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = buddySystem.allocate(GIB / 8, "P" + i);
+        }
+        assertNull(buddySystem.allocate(1, "P"));
+        for (int i = 0; i < addresses.length; i += 2) {
+            assertTrue(buddySystem.deallocate(addresses[i]));
+        }
+        assertEquals(GIB / 8, buddySystem.getLargestFreeBlock());
+        for (int i = 1; i < addresses.length; i += 2) {
+            assertTrue(buddySystem.deallocate(addresses[i]));
+        }
+        assertFalse(buddySystem.deallocate(addresses[0]));
+        assertEquals(8 * GIB, buddySystem.getLargestFreeBlock());
+        assertEquals(1, buddySystem.getFragmentationCount());
+    }
+
+    @Test
+    public void testBlocksAreListedInAddressOrder() {
+        LargeBuddySystem buddySystem = new LargeBuddySystem(1024, 4);
+        buddySystem.allocate(256, "P1");
+        buddySystem.allocate(16, "P2");
+        List<LongMemoryBlock> blocks = buddySystem.getAllBlocks();
+        long expectedAddress = 0;
+        for (LongMemoryBlock block : blocks) {
+            assertEquals(expectedAddress, block.getStartAddress());
+            expectedAddress += block.getSize();
+        }
+        assertEquals(1024, expectedAddress);
+        assertEquals("P2", blocks.get(1).getProcessId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyPages() {
+        new LargeBuddySystem(64 * GIB, 0);
+    }
+
+    @Test
+    public void testPersistentArenaSurvivesReopen() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("arena.meta");
+        LargeBuddySystem original = LargeBuddySystem.create(file, 16 * GIB, 16);
+        Long addr1 = original.allocate(GIB, "P1");
+        Long addr2 = original.allocate(3 * GIB, "P2");
+        Long addr3 = original.allocate(100, "P3");
+        original.deallocate(addr1);
+        original.sync();
+
+        LargeBuddySystem reopened = LargeBuddySystem.open(file);
+        assertFalse(reopened.wasRecovered());
+        assertEquals(original.getTotalAllocated(), reopened.getTotalAllocated());
+        assertEquals(original.getPeakMemoryUsage(), reopened.getPeakMemoryUsage());
+        assertEquals(original.getFragmentationCount(), reopened.getFragmentationCount());
+        assertEquals(4 * GIB, reopened.getBlockSize(addr2));
+        assertFalse(reopened.deallocate(addr1));
+        assertTrue(reopened.deallocate(addr2));
+        assertTrue(reopened.deallocate(addr3));
+        assertEquals(16 * GIB, reopened.getLargestFreeBlock());
+    }
+
+    @Test
+    public void testInterruptedOperationIsRecovered() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("arena.meta");
+        LargeBuddySystem original = LargeBuddySystem.create(file, 1L << 20, 12);
+        Long addr1 = original.allocate(4096, "P1");
+        Long addr2 = original.allocate(64 * 1024, "P2");
+
+        // Simulate a crash in the middle of an operation: dirty flag raised, free list heads lost
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(20);
+            raw.write(1);
+            raw.seek(64);
+            for (int i = 0; i < 64; i++) {
+                raw.writeInt(-1);
+            }
+        }
+
+        LargeBuddySystem recovered = LargeBuddySystem.open(file);
+        assertTrue(recovered.wasRecovered());
+        assertEquals(4096 + 64 * 1024, recovered.getTotalAllocated());
+        assertEquals(4096, recovered.getBlockSize(addr1));
+        long expectedAddress = 0;
+        for (LongMemoryBlock block : recovered.getAllBlocks()) {
+            assertEquals(expectedAddress, block.getStartAddress());
+            expectedAddress += block.getSize();
+        }
+        assertTrue(recovered.deallocate(addr1));
+        assertTrue(recovered.deallocate(addr2));
+        assertEquals(1, recovered.getFragmentationCount());
+        assertEquals(1L << 20, recovered.getLargestFreeBlock());
+    }
+
+    @Test
+    public void testHandleApi() {
+        LargeBuddySystem buddySystem = new LargeBuddySystem(64 * GIB, 12);
+        long handle = buddySystem.allocateHandle(3 * GIB);
+        assertNotEquals(LargeBuddySystem.NO_HANDLE, handle);
+        assertEquals(4 * GIB, LargeBuddySystem.handleSize(handle));
+        assertEquals(4 * GIB, buddySystem.getBlockSize(buddySystem.handleAddress(handle)));
+
+        long small = buddySystem.allocateHandle(1);
+        assertEquals(12, LargeBuddySystem.handleOrder(small));
+        assertEquals(LargeBuddySystem.NO_HANDLE, buddySystem.allocateHandle(64 * GIB));
+
+        assertTrue(buddySystem.freeHandle(handle));
+        assertFalse(buddySystem.freeHandle(handle));
+        assertTrue(buddySystem.freeHandle(small));
+        assertEquals(0, buddySystem.getTotalAllocated());
+        assertEquals(64 * GIB, buddySystem.getLargestFreeBlock());
+    }
+
+    @Test
+    public void testHandleApiDoesNotAllocate() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        LargeBuddySystem buddySystem = new LargeBuddySystem(1L << 30, 6);
+        long[] handles = new long[1024];
+        churn(buddySystem, handles);
+
+        long threadId = Thread.currentThread().threadId();
+        allocations.getThreadAllocatedBytes(threadId);
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        int operations = churn(buddySystem, handles);
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(0, buddySystem.getTotalAllocated());
+        assertTrue("Allocated " + allocated + " bytes over " + operations + " operations",
+                allocated <= ALLOCATION_SLACK);
+    }
+
+    // Allocates and frees mixed sizes in a steady pattern; returns the number of operations
+    private int churn(LargeBuddySystem buddySystem, long[] handles) {
+        int operations = 0;
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < handles.length; i++) {
+                handles[i] = buddySystem.allocateHandle(64L << (i % 8));
+            }
+            for (int i = handles.length - 1; i >= 0; i -= 2) {
+                buddySystem.freeHandle(handles[i]);
+            }
+            for (int i = handles.length - 2; i >= 0; i -= 2) {
+                buddySystem.freeHandle(handles[i]);
+            }
+            operations += 2 * handles.length;
+        }
+        return operations;
+    }
+
+    @Test
+    public void testCanAllocateTracksLargestFreeBlock() {
+        LargeBuddySystem buddySystem = new LargeBuddySystem(64 * GIB, 20);
+        assertTrue(buddySystem.canAllocate(64 * GIB));
+        Long address = buddySystem.allocate(GIB, "P1");
+        assertFalse(buddySystem.canAllocate(64 * GIB));
+        assertTrue(buddySystem.canAllocate(32 * GIB));
+        assertEquals(32 * GIB, buddySystem.getLargestFreeBlock());
+        assertTrue(buddySystem.deallocate(address));
+        assertEquals(64 * GIB, buddySystem.getLargestFreeBlock());
+    }
+}
@@ -0,0 +1,68 @@
+package com.memory;
+
+import com.memory.model.OffHeapBuddySystem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class OffHeapBuddySystemTest {
+    private OffHeapBuddySystem offHeap;
+    private static final int TOTAL_MEMORY = 1024;
+
+    @Before
+    public void setUp() {
+        offHeap = new OffHeapBuddySystem(TOTAL_MEMORY);
+    }
+
+    @Test
+    public void testAllocateReturnsDirectSlice() {
+        ByteBuffer buffer = offHeap.allocate(100, "P1");
+        assertNotNull(buffer);
+        assertTrue(buffer.isDirect());
+        assertEquals(100, buffer.capacity());
+        assertEquals(128, offHeap.getTotalAllocated());
+    }
+
+    @Test
+    public void testSlicesShareArena() {
+        ByteBuffer first = offHeap.allocate(256, "P1");
+        first.putInt(0, 42);
+        assertTrue(offHeap.deallocate(first));
+
+        // The freed block is handed out again without clearing, proving both views hit the same memory
+        ByteBuffer second = offHeap.allocate(256, "P2");
+        assertEquals(42, second.getInt(0));
+    }
+
+    @Test
+    public void testDeallocateUnknownBuffer() {
+        ByteBuffer buffer = offHeap.allocate(64, "P1");
+        assertFalse(offHeap.deallocate(buffer.duplicate()));
+        assertTrue(offHeap.deallocate(buffer));
+        assertFalse(offHeap.deallocate(buffer));
+        assertEquals(0, offHeap.getTotalAllocated());
+    }
+
+    @Test
+    public void testAllocationFailure() {
+        assertNotNull(offHeap.allocate(TOTAL_MEMORY, "P1"));
+        assertNull(offHeap.allocate(1, "P2"));
+    }
+
+    @Test
+    public void testReallocateKeepsContents() {
+        ByteBuffer buffer = offHeap.allocate(100, "P1");
+        ByteBuffer neighbour = offHeap.allocate(128, "P2");
+        buffer.putInt(96, 7);
+
+        ByteBuffer grown = offHeap.reallocate(buffer, 200);
+        assertEquals(200, grown.capacity());
+        assertEquals(7, grown.getInt(96));
+        assertNotEquals(offHeap.getAddress(neighbour), offHeap.getAddress(grown));
+        assertNull(offHeap.getAddress(buffer));
+        assertEquals(256 + 128, offHeap.getTotalAllocated());
+    }
+}
@@ -0,0 +1,101 @@
+package com.memory;
+
+import com.memory.model.RelocatableBuddySystem;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RelocatableBuddySystemTest {
+    private static final int TOTAL_MEMORY = 1024;
+    // Simulated arena contents, one int per byte of address space
+    private int[] memory;
+    private RelocatableBuddySystem allocator;
+
+    @Before
+    public void setUp() {
+        memory = new int[TOTAL_MEMORY];
+        allocator = new RelocatableBuddySystem(TOTAL_MEMORY,
+                (from, to, size) -> System.arraycopy(memory, from, memory, to, size));
+    }
+
+    private int[] allocateAndFreeEveryOther() {
+        int[] handles = new int[16];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = allocator.allocate(64, "P" + i);
+            memory[allocator.resolve(handles[i])] = handles[i] + 1;
+        }
+        for (int i = 0; i < handles.length; i += 2) {
+            assertTrue(allocator.deallocate(handles[i]));
+        }
+        return handles;
+    }
+
+    @Test
+    public void testCompactionCoalescesFreeMemory() {
+        int[] handles = allocateAndFreeEveryOther();
+        assertEquals(64, allocator.getLargestFreeBlock());
+        assertNull(allocator.allocate(512, "Big"));
+
+        int moves = allocator.compact();
+        assertEquals(4, moves);
+        assertEquals(512, allocator.getLargestFreeBlock());
+        assertEquals(1, allocator.getFragmentationCount());
+        assertEquals(4 * 64, allocator.getBytesMoved());
+
+        // Every live handle still finds its own contents
+        for (int i = 1; i < handles.length; i += 2) {
+            assertEquals(handles[i] + 1, memory[allocator.resolve(handles[i])]);
+        }
+        assertNotNull(allocator.allocate(512, "Big"));
+        assertEquals(-1, allocator.resolve(handles[0]));
+    }
+
+    @Test
+    public void testCompactionStepIsIncremental() {
+        allocateAndFreeEveryOther();
+        // A zero budget still makes progress one move at a time
+        assertEquals(1, allocator.compactStep(0));
+        assertEquals(1, allocator.getMoveCount());
+        while (!allocator.isCompacted()) {
+            allocator.compactStep(0);
+            assertTrue(allocator.getMoveCount() <= 4);
+        }
+        assertEquals(512, allocator.getLargestFreeBlock());
+        assertEquals(0, allocator.compactStep(1_000_000));
+    }
+
+    @Test
+    public void testZeroBudgetStepExaminesOneHole() {
+        // Free blocks whose buddies are split into smaller live blocks: nothing can move
+        RelocatableBuddySystem large = new RelocatableBuddySystem(1 << 16, null);
+        for (int i = 0; i < (1 << 16) / 32; i++) {
+            large.allocate(32, "P");
+        }
+        for (int handle = 0; handle < (1 << 16) / 32; handle += 4) {
+            assertTrue(large.deallocate(handle));
+            assertTrue(large.deallocate(handle + 1));
+        }
+        int holes = large.getBuddySystem().getFreeBlockCount(6);
+        assertEquals(512, holes);
+
+        int steps = 0;
+        while (!large.isCompacted()) {
+            assertEquals(0, large.compactStep(0));
+            steps++;
+        }
+        // One step per hole above the lowest, one to finish the sweep and one to notice it moved nothing
+        assertEquals(holes - 1 + 2, steps);
+        assertEquals(0, large.getMoveCount());
+    }
+
+    @Test
+    public void testHandlesAreReused() {
+        Integer first = allocator.allocate(100, "P1");
+        assertTrue(allocator.deallocate(first));
+        assertFalse(allocator.deallocate(first));
+        Integer second = allocator.allocate(100, "P2");
+        assertEquals(first, second);
+        assertEquals(128, allocator.getTotalAllocated());
+    }
+}
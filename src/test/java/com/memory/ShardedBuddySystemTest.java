@@ -0,0 +1,50 @@
+package com.memory;
+
+import com.memory.model.ShardedBuddySystem;
+import com.memory.model.ShardedBuddySystem.ArenaSelectionPolicy;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ShardedBuddySystemTest {
+    private static final int ARENA_SIZE = 1024;
+
+    @Test
+    public void testFallsBackToOtherArenas() {
+        ShardedBuddySystem sharded = new ShardedBuddySystem(4, ARENA_SIZE);
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(sharded.allocate(ARENA_SIZE, "P" + i));
+        }
+        assertNull(sharded.allocate(1, "P"));
+        assertEquals(4 * ARENA_SIZE, sharded.getTotalAllocated());
+        assertEquals(4, sharded.getAllocationCount());
+        assertEquals(0, sharded.getFragmentationCount());
+    }
+
+    @Test
+    public void testDeallocateRoutesToOwningArena() {
+        ShardedBuddySystem sharded = new ShardedBuddySystem(2, ARENA_SIZE);
+        Integer first = sharded.allocate(ARENA_SIZE, "P1");
+        Integer second = sharded.allocate(256, "P2");
+        assertNotEquals(first >>> 10, second >>> 10);
+
+        assertTrue(sharded.deallocate(second));
+        assertFalse(sharded.deallocate(second));
+        assertFalse(sharded.deallocate(5 * ARENA_SIZE));
+        assertEquals(ARENA_SIZE, sharded.getTotalAllocated());
+        assertEquals(ARENA_SIZE + 256, sharded.getPeakMemoryUsage());
+    }
+
+    @Test
+    public void testLeastLoadedPicksEmptiestArena() throws Exception {
+        ShardedBuddySystem sharded = new ShardedBuddySystem(2, ARENA_SIZE, ArenaSelectionPolicy.LEAST_LOADED);
+        Integer first = sharded.allocate(512, "P1");
+        assertEquals(0, first >>> 10);
+
+        Integer[] fromOtherThread = new Integer[1];
+        Thread thread = new Thread(() -> fromOtherThread[0] = sharded.allocate(512, "P2"));
+        thread.start();
+        thread.join();
+        assertEquals(1, fromOtherThread[0] >>> 10);
+    }
+}
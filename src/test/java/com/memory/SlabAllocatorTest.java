@@ -0,0 +1,107 @@
+package com.memory;
+
+import com.memory.model.BuddySystem;
+import com.memory.model.SlabAllocator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SlabAllocatorTest {
+    private BuddySystem buddySystem;
+    private SlabAllocator slabAllocator;
+    private static final int TOTAL_MEMORY = 1 << 16;
+
+    @Before
+    public void setUp() {
+        buddySystem = new BuddySystem(TOTAL_MEMORY);
+        slabAllocator = new SlabAllocator(buddySystem);
+    }
+
+    @Test
+    public void testSmallRequestsUseSizeClasses() {
+        Integer address = slabAllocator.allocate(65, "P1");
+        assertNotNull(address);
+        assertEquals(1, slabAllocator.getSlabCount());
+        assertEquals(80, slabAllocator.getSlabUsedMemory());
+        assertEquals(4096, buddySystem.getTotalAllocated());
+    }
+
+    @Test
+    public void testSlotsDoNotOverlap() {
+        Set<Integer> addresses = new HashSet<>();
+        // 4096 / 48 = 85 slots per slab, so this needs several slabs
+        for (int i = 0; i < 300; i++) {
+            Integer address = slabAllocator.allocate(40, "P");
+            assertTrue(addresses.add(address));
+            assertEquals(0, (address & 4095) % 48);
+        }
+        assertEquals(4, slabAllocator.getSlabCount());
+    }
+
+    @Test
+    public void testEmptySlabsReturnToBuddySystem() {
+        int[] addresses = new int[200];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = slabAllocator.allocate(32, "P");
+        }
+        assertEquals(2, slabAllocator.getSlabCount());
+        for (int address : addresses) {
+            assertTrue(slabAllocator.deallocate(address));
+        }
+        assertFalse(slabAllocator.deallocate(addresses[0]));
+        // One empty slab is kept around per size class
+        assertEquals(1, slabAllocator.getSlabCount());
+        assertEquals(0, slabAllocator.getSlabUsedMemory());
+        assertEquals(4096, buddySystem.getTotalAllocated());
+    }
+
+    @Test
+    public void testFirstEmptySlabIsKeptWhileOthersArePartial() {
+        // 4096 / 32 = 128 slots per slab: the first slab fills up, the second is partial
+        int[] addresses = new int[200];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = slabAllocator.allocate(32, "P");
+        }
+        for (int i = 0; i < 128; i++) {
+            assertTrue(slabAllocator.deallocate(addresses[i]));
+        }
+        assertEquals(2, slabAllocator.getSlabCount());
+        for (int i = 0; i < 128; i++) {
+            assertNotNull(slabAllocator.allocate(32, "P"));
+        }
+        assertEquals(2, slabAllocator.getSlabCount());
+    }
+
+    @Test
+    public void testDefaultClassesFitSmallArenas() {
+        SlabAllocator small = new SlabAllocator(new BuddySystem(512));
+        assertEquals(512, small.getSlabSize());
+        Integer address = small.allocate(200, "P1");
+        assertNotNull(address);
+        assertEquals(1, small.getSlabCount());
+        assertNotNull(small.allocate(256, "P1"));
+        // Both 256 byte slots of the only slab are taken
+        assertNull(small.allocate(8, "P1"));
+        assertTrue(small.deallocate(address));
+    }
+
+    @Test
+    public void testLargeRequestsGoToBuddySystem() {
+        Integer address = slabAllocator.allocate(1000, "P1");
+        assertEquals(0, slabAllocator.getSlabCount());
+        assertEquals(1024, buddySystem.getTotalAllocated());
+        assertTrue(slabAllocator.deallocate(address));
+        assertEquals(0, buddySystem.getTotalAllocated());
+    }
+
+    @Test
+    public void testMisalignedAddressIsRejected() {
+        Integer address = slabAllocator.allocate(24, "P1");
+        assertFalse(slabAllocator.deallocate(address + 1));
+        assertTrue(slabAllocator.deallocate(address));
+    }
+}
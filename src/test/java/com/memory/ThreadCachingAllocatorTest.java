@@ -0,0 +1,67 @@
+package com.memory;
+
+import com.memory.model.ConcurrentBuddySystem;
+import com.memory.model.ThreadCachingAllocator;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ThreadCachingAllocatorTest {
+    private ConcurrentBuddySystem backing;
+    private ThreadCachingAllocator cache;
+    private static final int TOTAL_MEMORY = 1024;
+
+    @Before
+    public void setUp() {
+        backing = new ConcurrentBuddySystem(TOTAL_MEMORY);
+        cache = new ThreadCachingAllocator(backing, 64, 4, 2);
+    }
+
+    @Test
+    public void testRefillInBatches() {
+        Integer addr1 = cache.allocate(32, "P1");
+        Integer addr2 = cache.allocate(32, "P2");
+        assertNotNull(addr1);
+        assertNotNull(addr2);
+        assertEquals(1, cache.getCacheMisses());
+        assertEquals(1, cache.getCacheHits());
+        assertEquals(2, backing.getAllocationCount());
+    }
+
+    @Test
+    public void testFreedBlocksAreReused() {
+        Integer address = cache.allocate(16, "P1");
+        assertTrue(cache.deallocate(address));
+        assertFalse(cache.deallocate(address));
+        assertEquals(address, cache.allocate(16, "P1"));
+        assertEquals(0.5, cache.getCacheHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testOverflowFlushesBatch() {
+        int[] addresses = new int[6];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = cache.allocate(8, "P");
+        }
+        for (int address : addresses) {
+            assertTrue(cache.deallocate(address));
+        }
+        assertEquals(1, cache.getFlushCount());
+        assertEquals(4 * 8, cache.getCachedMemory());
+        assertEquals(4 * 8, backing.getTotalAllocated());
+
+        cache.flushThreadCache();
+        assertEquals(0, cache.getCachedMemory());
+        assertEquals(0, backing.getTotalAllocated());
+    }
+
+    @Test
+    public void testLargeRequestsBypassCache() {
+        Integer address = cache.allocate(512, "P1");
+        assertNotNull(address);
+        assertEquals(0, cache.getCacheMisses());
+        assertTrue(cache.deallocate(address));
+        assertEquals(0, backing.getTotalAllocated());
+    }
+}
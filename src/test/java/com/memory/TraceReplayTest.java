@@ -0,0 +1,142 @@
+package com.memory;
+
+import com.memory.model.BuddySystem;
+import com.memory.model.ConcurrentBuddySystem;
+import com.memory.trace.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TraceReplayTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordAndReadBack() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TraceRecorder recorder = new TraceRecorder(bytes)) {
+            TracingAllocator allocator = new TracingAllocator(new BuddySystem(1024), recorder);
+            Integer address = allocator.allocate(300, "P1");
+            allocator.allocate(2048, "P2");
+            allocator.deallocate(address);
+            assertEquals(3, recorder.getRecordCount());
+        }
+
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertTrue(reader.next());
+            assertEquals(TraceReader.EventType.ALLOCATE, reader.getType());
+            assertEquals(300, reader.getSize());
+            assertEquals("P1", reader.getProcessId());
+            assertEquals(0, reader.getAddress());
+            assertTrue(reader.isSuccess());
+
+            assertTrue(reader.next());
+            assertEquals("P2", reader.getProcessId());
+            assertFalse(reader.isSuccess());
+
+            assertTrue(reader.next());
+            assertEquals(TraceReader.EventType.DEALLOCATE, reader.getType());
+            assertEquals(0, reader.getAddress());
+            assertTrue(reader.isSuccess());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testReplayIntoSmallerArena() throws IOException {
+        Path trace = folder.newFile("trace.bin").toPath();
+        try (TraceRecorder recorder = new TraceRecorder(trace)) {
+            TracingAllocator allocator = new TracingAllocator(new BuddySystem(1 << 16), recorder);
+            Random random = new Random(7);
+            ArrayDeque<Integer> live = new ArrayDeque<>();
+            for (int i = 0; i < 10_000; i++) {
+                if (live.size() < 32 && (live.isEmpty() || random.nextBoolean())) {
+                    live.add(allocator.allocate(1 + random.nextInt(512), "P" + random.nextInt(4)));
+                } else {
+                    allocator.deallocate(live.poll());
+                }
+            }
+        }
+
+        ReplayReport same = new TraceReplayer(16, 100).replay(trace, new BuddySystem(1 << 16));
+        assertEquals(10_000, same.getEventCount());
+        assertEquals(0, same.getFailedAllocations());
+        assertEquals(-1, same.getFirstFailureEvent());
+        assertTrue(same.getTimeline().size() <= 16);
+        assertEquals(10_000, same.getTimeline().get(same.getTimeline().size() - 1).getEventIndex());
+
+        ReplayReport small = new TraceReplayer().replay(trace, new BuddySystem(4096));
+        assertTrue(small.getFailedAllocations() > 0);
+        assertTrue(small.getFirstFailureEvent() >= 0);
+        assertTrue(small.getPeakMemoryUsage() <= 4096);
+    }
+
+    @Test
+    public void testConcurrentTraceIsInOrder() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TraceRecorder recorder = new TraceRecorder(bytes)) {
+            TracingAllocator allocator = new TracingAllocator(new ConcurrentBuddySystem(1024), recorder);
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                String processId = "P" + t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        Integer address = allocator.allocate(256, processId);
+                        if (address != null) {
+                            allocator.deallocate(address);
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        // Addresses reused by another thread must appear after the deallocation that freed them
+        Set<Integer> live = new HashSet<>();
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            while (reader.next()) {
+                if (!reader.isSuccess()) {
+                    continue;
+                }
+                if (reader.getType() == TraceReader.EventType.ALLOCATE) {
+                    assertTrue(live.add(reader.getAddress()));
+                } else {
+                    assertTrue(live.remove(reader.getAddress()));
+                }
+            }
+        }
+        assertTrue(live.isEmpty());
+    }
+
+    // Header, then an allocation naming process index 5, which was never defined
+    @Test
+    public void testRejectsUndefinedProcessIndex() throws IOException {
+        byte[] trace = {0x42, 0x54, 0x52, 0x43, 1, 1, 0, 8, 5, 1};
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        try {
+            reader.next();
+            fail("Read an allocation by an undefined process");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupt trace"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsForeignFiles() throws IOException {
+        new TraceReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+    }
+}